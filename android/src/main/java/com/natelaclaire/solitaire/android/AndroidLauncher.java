@@ -5,6 +5,11 @@ import android.os.Bundle;
 import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 import com.natelaclaire.solitaire.SolitaireGame;
+import com.natelaclaire.solitaire.storage.JournalFile;
+import com.natelaclaire.solitaire.storage.LeaderboardFile;
+import com.natelaclaire.solitaire.storage.TelemetryLog;
+
+import java.io.File;
 
 /** Launches the Android application. */
 public class AndroidLauncher extends AndroidApplication {
@@ -13,6 +18,8 @@ public class AndroidLauncher extends AndroidApplication {
         super.onCreate(savedInstanceState);
         AndroidApplicationConfiguration configuration = new AndroidApplicationConfiguration();
         configuration.useImmersiveMode = true; // Recommended, but not required.
-        initialize(new SolitaireGame(), configuration);
+        TelemetryLog telemetry = new TelemetryLog(new File(getFilesDir(), "telemetry"));
+        JournalFile journal = new JournalFile(getFilesDir());
+        initialize(new SolitaireGame(new LeaderboardFile(getFilesDir()), telemetry, journal), configuration);
     }
 }
\ No newline at end of file
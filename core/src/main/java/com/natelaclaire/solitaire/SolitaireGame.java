@@ -1,5 +1,6 @@
 package com.natelaclaire.solitaire;
 
+import com.badlogic.gdx.Application;
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputAdapter;
@@ -7,9 +8,22 @@ import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.natelaclaire.solitaire.game.DailyChallenge;
+import com.natelaclaire.solitaire.game.DifficultyIndex;
 import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameEvent;
+import com.natelaclaire.solitaire.game.GameJournal;
+import com.natelaclaire.solitaire.game.GameListener;
+import com.natelaclaire.solitaire.game.Leaderboard;
+import com.natelaclaire.solitaire.game.Telemetry;
+import com.natelaclaire.solitaire.solver.FileSolutionSource;
+import com.natelaclaire.solitaire.solver.HttpSolutionSource;
+import com.natelaclaire.solitaire.solver.SolutionDatabase;
+import com.natelaclaire.solitaire.solver.WinnabilityChecker;
 import com.natelaclaire.solitaire.ui.Assets;
 import com.natelaclaire.solitaire.ui.GameLayout;
 import com.natelaclaire.solitaire.ui.GameRenderer;
@@ -29,46 +43,145 @@ public class SolitaireGame extends ApplicationAdapter {
     private Assets assets;
     private GameRenderer renderer;
     private InputController inputController;
+    private final Leaderboard leaderboard;
+    private final Telemetry telemetry;
+    private final GameJournal journal;
+    private long sessionStart;
+    private long lastMoveNanos;
+    private long frameWindowStart;
+    private long slowestFrame;
+    private int frames;
+    private DifficultyIndex difficultyIndex;
+    private WinnabilityChecker winnabilityChecker;
+    private SolutionDatabase solutions;
+    /** Set when the tableau changed shape; the layout is recomputed once before the next frame. */
+    private boolean layoutDirty;
+
+    public SolitaireGame() {
+        this(null);
+    }
+
+    /** @param leaderboard where daily challenge results are kept, or null on platforms without local files */
+    public SolitaireGame(Leaderboard leaderboard) {
+        this(leaderboard, Telemetry.NONE);
+    }
+
+    public SolitaireGame(Leaderboard leaderboard, Telemetry telemetry) {
+        this(leaderboard, telemetry, null);
+    }
+
+    /** @param journal restores the game in progress at startup and records it as it is played, or null */
+    public SolitaireGame(Leaderboard leaderboard, Telemetry telemetry, GameJournal journal) {
+        this.leaderboard = leaderboard;
+        this.telemetry = telemetry;
+        this.journal = journal;
+    }
 
     @Override
     public void create() {
+        sessionStart = TimeUtils.millis();
+        lastMoveNanos = TimeUtils.nanoTime();
+        telemetry.record(Telemetry.SESSION_START, 0L, 0L);
         batch = new SpriteBatch();
         font = new BitmapFont();
         glyphLayout = new GlyphLayout();
 
+        // Nothing moves unless the player or a load changes something, so frames are drawn only on request: after
+        // input, engine events and pending work (see requestFrame), instead of at the display's refresh rate.
+        Gdx.graphics.setContinuousRendering(false);
+
         camera = new OrthographicCamera();
         viewport = new FitViewport(1024f, 768f, camera);
         viewport.apply(true);
 
         engine = new GameEngine();
+        if (journal != null) {
+            // Replayed before any listener is attached, so the restored moves are not journaled or counted again.
+            boolean restored = journal.restore(engine);
+            engine.addListener(journal);
+            if (!restored) {
+                // The constructor dealt before the journal was listening; deal the same game again so it is recorded.
+                engine.newGame(engine.getState().seed);
+            }
+        }
+        engine.addListener(new GameListener() {
+            @Override
+            public void onGameEvent(GameEngine source, GameEvent event) {
+                switch (event.type) {
+                    case CARDS_MOVED:
+                    case CARD_FLIPPED:
+                    case UNDO:
+                    case JUMP:
+                        layoutDirty = true;
+                        break;
+                    case RESET:
+                        layoutDirty = true;
+                        lookupSolution();
+                        break;
+                    default:
+                        break;
+                }
+                recordTelemetry(source, event);
+                renderer.invalidateBoard();
+                requestFrame();
+            }
+        });
         layout = new GameLayout();
         ui = new UiState();
         assets = new Assets();
         assets.reloadCardArt(ui.frontPrefix, ui.backName);
-        renderer = new GameRenderer(batch, font, glyphLayout, assets, layout, ui);
-        inputController = new InputController(viewport, layout, ui, engine, assets, this::updateLayout);
+        renderer = new GameRenderer(batch, font, assets, layout, ui);
+        if (Gdx.files.internal("difficulty.idx").exists()) {
+            difficultyIndex = DifficultyIndex.load(Gdx.files.internal("difficulty.idx"));
+        }
+        if (leaderboard != null) {
+            leaderboard.setDifficultyIndex(difficultyIndex);
+        }
+        if (Gdx.app.getType() == Application.ApplicationType.WebGL) {
+            // Too large to preload; fetched a chunk at a time from the split copy next to index.html.
+            solutions = new SolutionDatabase(new HttpSolutionSource("solutions/"));
+        } else if (Gdx.files.internal("solutions.db").exists()) {
+            solutions = new SolutionDatabase(new FileSolutionSource(Gdx.files.internal("solutions.db")));
+        }
+        lookupSolution();
+        inputController = new InputController(viewport, layout, ui, engine, assets, new InputController.Callbacks() {
+            @Override
+            public void onStateChanged() {
+                updateLayout();
+            }
+
+            @Override
+            public void onDailyChallenge() {
+                startDailyChallenge();
+            }
+
+            @Override
+            public void onWin() {
+                submitDailyResult();
+            }
+        });
 
         updateLayout();
 
         Gdx.input.setInputProcessor(new InputAdapter() {
             @Override
             public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-                return inputController.touchDown(screenX, screenY);
+                return afterInput(inputController.touchDown(screenX, screenY));
             }
 
             @Override
             public boolean touchDragged(int screenX, int screenY, int pointer) {
-                return inputController.touchDragged(screenX, screenY);
+                return afterInput(inputController.touchDragged(screenX, screenY));
             }
 
             @Override
             public boolean touchUp(int screenX, int screenY, int pointer, int button) {
-                return inputController.touchUp(screenX, screenY);
+                return afterInput(inputController.touchUp(screenX, screenY));
             }
 
             @Override
             public boolean scrolled(float amountX, float amountY) {
-                return inputController.scrolled(amountY);
+                return afterInput(inputController.scrolled(amountY));
             }
         });
     }
@@ -76,30 +189,190 @@ public class SolitaireGame extends ApplicationAdapter {
     @Override
     public void resize(int width, int height) {
         viewport.update(width, height, true);
+        renderer.resize(viewport.getScreenX(), viewport.getScreenY(), viewport.getScreenWidth(),
+            viewport.getScreenHeight());
         updateLayout();
     }
 
     @Override
     public void render() {
+        long frameStart = TimeUtils.nanoTime();
         ScreenUtils.clear(renderer.getTableColor());
-        if (layout.worldWidth == 0f || layout.worldHeight == 0f) {
+        if (layoutDirty || layout.worldWidth == 0f || layout.worldHeight == 0f) {
             updateLayout();
         }
 
+        if (ui.showWinnable) {
+            updateWinnable();
+            if (winnabilityChecker().isSearching()) {
+                // The search runs a slice per frame.
+                requestFrame();
+            }
+        }
+
+        if (!assets.update()) {
+            // Keep frames coming until the art being loaded is on screen.
+            requestFrame();
+        }
         batch.setProjectionMatrix(camera.combined);
         batch.begin();
-        renderer.render(engine);
+        if (assets.isReady()) {
+            renderer.render(engine);
+        } else {
+            renderer.renderLoading(assets.getProgress());
+        }
         batch.end();
+        recordFrame(frameStart);
+    }
+
+    @Override
+    public void pause() {
+        if (journal != null) {
+            // Mobile apps are often killed without warning once in the background.
+            journal.flush();
+        }
     }
 
     @Override
     public void dispose() {
+        telemetry.record(Telemetry.SESSION_END, TimeUtils.timeSinceMillis(sessionStart), 0L);
+        telemetry.close();
+        if (journal != null) {
+            journal.close();
+        }
         batch.dispose();
         font.dispose();
+        renderer.dispose();
         assets.dispose();
     }
 
+    private void recordTelemetry(GameEngine source, GameEvent event) {
+        switch (event.type) {
+            case CARDS_MOVED:
+            case CARD_FLIPPED:
+            case DRAW:
+            case RECYCLE: {
+                long now = TimeUtils.nanoTime();
+                telemetry.record(Telemetry.MOVE, event.type.ordinal(), now - lastMoveNanos);
+                lastMoveNanos = now;
+                break;
+            }
+            case UNDO:
+                telemetry.record(Telemetry.UNDO, source.getMoves().size, 0L);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Sums up frame times once a second rather than recording every frame. Frames are timed from the start of
+     * {@link #render}, since with rendering on request the gap between frames is mostly idle time.
+     */
+    private void recordFrame(long frameStart) {
+        long now = TimeUtils.nanoTime();
+        if (frames == 0) {
+            frameWindowStart = frameStart;
+        }
+        slowestFrame = Math.max(slowestFrame, now - frameStart);
+        frames++;
+        if (now - frameWindowStart >= 1_000_000_000L) {
+            telemetry.record(Telemetry.FRAMES, frames, slowestFrame);
+            frames = 0;
+            slowestFrame = 0L;
+        }
+    }
+
+    /** Asks for one more frame; any number of requests before it is drawn collapse into one. */
+    private void requestFrame() {
+        Gdx.graphics.requestRendering();
+    }
+
+    /** Input can change the selection or an overlay even when it reports the event unhandled, so always redraw. */
+    private boolean afterInput(boolean handled) {
+        requestFrame();
+        return handled;
+    }
+
+    /** Hands the precomputed solution for the current deal, if there is one, to the winnability check. */
+    private void lookupSolution() {
+        if (solutions == null) {
+            return;
+        }
+        solutions.lookup(engine.getState().seed, new SolutionDatabase.Listener() {
+            @Override
+            public void solution(long found, IntArray moves) {
+                if (moves == null || solutions.getDrawCount() != engine.getDrawCount()
+                    || engine.getState().seed != found) {
+                    return;
+                }
+                winnabilityChecker().offerSolution(found, engine.getDrawCount(), moves);
+                // May arrive from the network between frames and change the winnability label.
+                requestFrame();
+            }
+        });
+    }
+
+    private WinnabilityChecker winnabilityChecker() {
+        if (winnabilityChecker == null) {
+            winnabilityChecker = new WinnabilityChecker();
+        }
+        return winnabilityChecker;
+    }
+
+    private void updateWinnable() {
+        String previous = ui.winnableLabel;
+        switch (winnabilityChecker().check(engine)) {
+            case WINNABLE:
+                ui.winnableLabel = "Still winnable";
+                break;
+            case NOT_WINNABLE:
+                ui.winnableLabel = "Can no longer be won";
+                break;
+            case CHECKING:
+                // Keep the last answer up rather than blinking it out for the few frames a search takes.
+                break;
+            default:
+                ui.winnableLabel = "";
+                break;
+        }
+        if (!previous.equals(ui.winnableLabel)) {
+            renderer.invalidateBoard();
+        }
+    }
+
+    private void startDailyChallenge() {
+        int day = DailyChallenge.today();
+        engine.newGame(DailyChallenge.seedFor(day, difficultyIndex));
+        ui.clearSelection();
+        ui.dailyChallengeDay = day;
+        ui.dailySubmitted = false;
+        updateDailyBest();
+        updateLayout();
+    }
+
+    private void submitDailyResult() {
+        if (ui.dailyChallengeDay < 0 || ui.dailySubmitted || leaderboard == null) {
+            return;
+        }
+        ui.dailySubmitted = true;
+        int rank = leaderboard.submit(ui.dailyChallengeDay, engine.getState().seed, engine.getDrawCount(),
+            engine.getScore(), engine.getMoves());
+        if (rank == Leaderboard.REJECTED) {
+            ui.dailyBestLabel = "Result could not be verified";
+        } else {
+            updateDailyBest();
+        }
+    }
+
+    private void updateDailyBest() {
+        int best = leaderboard == null ? -1 : leaderboard.bestScore(ui.dailyChallengeDay);
+        ui.dailyBestLabel = best < 0 ? "" : "Best today: " + best;
+    }
+
     private void updateLayout() {
+        layoutDirty = false;
+        renderer.invalidateBoard();
         layout.update(viewport, engine.getState(), font, glyphLayout);
         ui.updateRulesLayout(layout, font, glyphLayout);
     }
@@ -0,0 +1,53 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.game.PileType;
+
+/**
+ * Deterministic foundation-first player: sends a card home whenever it can, otherwise turns over or uncovers a
+ * face-down card, plays the waste, and only then draws. Moves that just shuffle face-up cards around are never
+ * made, so it cannot loop.
+ */
+public class GreedyPlayer implements Player {
+    @Override
+    public void newGame(long seed) {
+    }
+
+    @Override
+    public int chooseMove(GameState state, IntArray legalMoves) {
+        int best = Move.NONE;
+        int bestPriority = 0;
+        for (int i = 0; i < legalMoves.size; i++) {
+            int move = legalMoves.get(i);
+            int priority = priority(state, move);
+            if (priority > bestPriority) {
+                best = move;
+                bestPriority = priority;
+            }
+        }
+        return best;
+    }
+
+    private static int priority(GameState state, int move) {
+        switch (Move.kind(move)) {
+            case Move.DRAW:
+                return 1;
+            case Move.FLIP:
+                return 4;
+            case Move.TRANSFER:
+                break;
+            default:
+                return 0;
+        }
+        PileType from = state.pile(Move.from(move)).type;
+        if (state.pile(Move.to(move)).type == PileType.FOUNDATION) {
+            return 5;
+        }
+        if (from == PileType.TABLEAU && HeuristicPlayer.uncoversCard(state, move)) {
+            return 3;
+        }
+        return from == PileType.WASTE ? 2 : 0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.game.Pile;
+import com.natelaclaire.solitaire.game.PileType;
+
+/**
+ * Scores every legal move by what it achieves, using the weights below, and plays the best one, breaking ties at
+ * random. Moves with a weight of zero or less are never played. The defaults play like a casual player who only
+ * looks at face-up cards.
+ */
+public class HeuristicPlayer implements Player {
+    public int foundationWeight = 100;
+    public int flipWeight = 90;
+    /** Tableau moves that uncover a face-down card. */
+    public int uncoverWeight = 80;
+    public int wasteToTableauWeight = 50;
+    /** Moving a whole column onto another pile, leaving the column empty. */
+    public int emptyColumnWeight = 40;
+    public int drawWeight = 10;
+    public int fromFoundationWeight = 0;
+    public int otherWeight = 0;
+
+    private final RandomXS128 random = new RandomXS128();
+
+    @Override
+    public void newGame(long seed) {
+        random.setSeed(seed);
+    }
+
+    @Override
+    public int chooseMove(GameState state, IntArray legalMoves) {
+        int best = Move.NONE;
+        int bestScore = 0;
+        int ties = 0;
+        for (int i = 0; i < legalMoves.size; i++) {
+            int move = legalMoves.get(i);
+            int score = score(state, move);
+            if (score > bestScore) {
+                best = move;
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && score > 0 && random.nextInt(++ties) == 0) {
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    private int score(GameState state, int move) {
+        switch (Move.kind(move)) {
+            case Move.DRAW:
+                return drawWeight;
+            case Move.FLIP:
+                return flipWeight;
+            case Move.TRANSFER:
+                break;
+            default:
+                return 0;
+        }
+        Pile from = state.pile(Move.from(move));
+        Pile to = state.pile(Move.to(move));
+        if (to.type == PileType.FOUNDATION) {
+            return foundationWeight;
+        }
+        if (from.type == PileType.FOUNDATION) {
+            return fromFoundationWeight;
+        }
+        if (from.type == PileType.WASTE) {
+            return wasteToTableauWeight;
+        }
+        if (uncoversCard(state, move)) {
+            return uncoverWeight;
+        }
+        if (Move.start(move) == 0 && to.cards.size > 0) {
+            return emptyColumnWeight;
+        }
+        return otherWeight;
+    }
+
+    /** True if {@code move} takes a tableau run off a face-down card. */
+    static boolean uncoversCard(GameState state, int move) {
+        int start = Move.start(move);
+        return start > 0 && !state.pile(Move.from(move)).cards.get(start - 1).faceUp;
+    }
+}
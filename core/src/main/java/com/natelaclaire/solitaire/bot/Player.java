@@ -0,0 +1,18 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+
+/**
+ * An automated player. {@link PlayerRunner} asks it for one move at a time, passing the position and the moves
+ * {@link com.natelaclaire.solitaire.game.GameRules#collectMoves} allows there. Implementations treat both as
+ * read-only and must not allocate while choosing, so they can be run millions of times.
+ */
+public interface Player {
+    /** Called before each game; players with randomness reseed from {@code seed} so runs are reproducible. */
+    void newGame(long seed);
+
+    /** Returns one of {@code legalMoves}, or {@link Move#NONE} to give up. */
+    int chooseMove(GameState state, IntArray legalMoves);
+}
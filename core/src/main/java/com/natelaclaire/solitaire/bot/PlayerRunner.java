@@ -0,0 +1,60 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameRules;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+
+/**
+ * Plays whole games with a {@link Player} on a {@link GameEngine}. A game ends when it is won, when the player
+ * gives up or plays an illegal move, after {@link #MAX_STEPS} moves, or when the player draws through the whole
+ * stock and waste without doing anything else.
+ */
+public class PlayerRunner {
+    public static final int MAX_STEPS = 1000;
+
+    private final GameEngine engine = new GameEngine();
+    private final IntArray moves = new IntArray();
+    private int steps;
+
+    /** Plays deal {@code dealSeed}; returns true if the player won. */
+    public boolean play(Player player, long dealSeed, int drawCount, long playerSeed) {
+        engine.setDrawCount(drawCount);
+        engine.newGame(dealSeed);
+        player.newGame(playerSeed);
+        int draws = 0;
+        for (steps = 0; steps < MAX_STEPS && !engine.isWin(); steps++) {
+            GameState state = engine.getState();
+            moves.clear();
+            GameRules.collectMoves(state, moves);
+            int move = player.chooseMove(state, moves);
+            if (move == Move.NONE) {
+                break;
+            }
+            if (Move.kind(move) == Move.DRAW) {
+                // A full pass through stock and waste without any other move means the player is stuck.
+                int cycle = (state.stock.cards.size + state.waste.cards.size) / drawCount + 2;
+                if (++draws > cycle) {
+                    break;
+                }
+            } else {
+                draws = 0;
+            }
+            if (!engine.applyMove(move)) {
+                break;
+            }
+        }
+        return engine.isWin();
+    }
+
+    /** The engine of the last game, left in its final position. */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /** Moves played in the last game. */
+    public int getSteps() {
+        return steps;
+    }
+}
@@ -0,0 +1,24 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+
+/** Picks uniformly among the legal moves. A baseline for benchmarks and load tests. */
+public class RandomPlayer implements Player {
+    private final RandomXS128 random = new RandomXS128();
+
+    @Override
+    public void newGame(long seed) {
+        random.setSeed(seed);
+    }
+
+    @Override
+    public int chooseMove(GameState state, IntArray legalMoves) {
+        if (legalMoves.size == 0) {
+            return Move.NONE;
+        }
+        return legalMoves.get(random.nextInt(legalMoves.size));
+    }
+}
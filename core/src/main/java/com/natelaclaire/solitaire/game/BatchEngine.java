@@ -0,0 +1,389 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Many games stepped in lock-step for bot training and evaluation, stored as flat primitive arrays instead of one
+ * {@link GameState} per game. Actions are {@link Move} values and are played with exactly the rules and scoring of
+ * {@link GameEngine#applyMove}; {@link #collectMoves} lists moves in the same order as
+ * {@link GameRules#collectMoves}. Nothing is allocated after construction.
+ *
+ * <p>Every pile of every game owns a fixed slot of {@link #PILE_CAPACITY} bytes in one card array, addressed by
+ * {@code (game * PILE_COUNT + pile) * PILE_CAPACITY}. Each byte is a {@link Card#index()}, with {@link #FACE_UP} set
+ * for face-up cards. There is no undo history.
+ */
+public class BatchEngine {
+    public static final int PILE_CAPACITY = 24;
+    public static final int FACE_UP = 0x80;
+    private static final int PILE_COUNT = GameState.PILE_COUNT;
+    private static final int GAME_STRIDE = PILE_COUNT * PILE_CAPACITY;
+    private static final long ACES = 1L | 1L << 13 | 1L << 26 | 1L << 39;
+    private static final long KINGS = ACES << 12;
+
+    private final int games;
+    private final int drawCount;
+    private final byte[] cards;
+    private final int[] sizes;
+    private final int[] scores;
+    private final boolean[] won;
+    private final long[] seeds;
+    private final byte[] deck = new byte[52];
+    /** Per pile, a bit mask over {@link Card#index()} of the cards it accepts; filled by {@link #collectMoves}. */
+    private final long[] accepts = new long[PILE_COUNT];
+    private final RandomXS128 random = new RandomXS128();
+
+    public BatchEngine(int games, int drawCount) {
+        this.games = games;
+        this.drawCount = drawCount;
+        this.cards = new byte[games * GAME_STRIDE];
+        this.sizes = new int[games * PILE_COUNT];
+        this.scores = new int[games];
+        this.won = new boolean[games];
+        this.seeds = new long[games];
+    }
+
+    public int size() {
+        return games;
+    }
+
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    /** Deals {@code seed} into {@code game}; the deal is the same as {@code GameState.newGame(seed)}. */
+    public void reset(int game, long seed) {
+        for (int i = 0; i < 52; i++) {
+            deck[i] = (byte) i;
+        }
+        random.setSeed(seed);
+        for (int i = 51; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte swap = deck[i];
+            deck[i] = deck[j];
+            deck[j] = swap;
+        }
+        int base = game * PILE_COUNT;
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            sizes[base + pile] = 0;
+        }
+        int top = 52;
+        for (int c = 0; c < 7; c++) {
+            int pile = GameState.FIRST_TABLEAU + c;
+            for (int j = 0; j <= c; j++) {
+                byte card = deck[--top];
+                push(game, pile, j == c ? (byte) (card | FACE_UP) : card);
+            }
+        }
+        while (top > 0) {
+            push(game, GameState.STOCK, deck[--top]);
+        }
+        scores[game] = 0;
+        won[game] = false;
+        seeds[game] = seed;
+    }
+
+    /** Copies an arbitrary position into {@code game}. */
+    public void load(int game, GameState state) {
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            Pile source = state.pile(pile);
+            sizes[game * PILE_COUNT + pile] = 0;
+            for (int i = 0; i < source.cards.size; i++) {
+                Card card = source.cards.get(i);
+                push(game, pile, (byte) (card.index() | (card.faceUp ? FACE_UP : 0)));
+            }
+        }
+        scores[game] = state.score;
+        won[game] = state.winState;
+        seeds[game] = state.seed;
+    }
+
+    /** Builds a {@link GameState} for {@code game}, e.g. to render it or hand it to a {@code Player}. Allocates. */
+    public GameState toState(int game) {
+        GameState state = GameState.newGame(seeds[game]);
+        for (int pile = 0; pile < PILE_COUNT; pile++) {
+            Pile target = state.pile(pile);
+            target.cards.clear();
+            for (int i = 0, n = pileSize(game, pile); i < n; i++) {
+                int card = card(game, pile, i);
+                Card copy = new Card(Suit.values()[(card & 0x7f) / 13], (card & 0x7f) % 13 + 1);
+                copy.faceUp = (card & FACE_UP) != 0;
+                target.cards.add(copy);
+            }
+        }
+        state.score = scores[game];
+        state.winState = won[game];
+        return state;
+    }
+
+    public int pileSize(int game, int pile) {
+        return sizes[game * PILE_COUNT + pile];
+    }
+
+    /** Returns the card byte at {@code index} of {@code pile}: a {@link Card#index()}, or'ed with {@link #FACE_UP}. */
+    public int card(int game, int pile, int index) {
+        return cards[(game * PILE_COUNT + pile) * PILE_CAPACITY + index] & 0xff;
+    }
+
+    public int getScore(int game) {
+        return scores[game];
+    }
+
+    public boolean isWon(int game) {
+        return won[game];
+    }
+
+    /**
+     * Applies one action per game. {@code rewards[i]} receives the score change and {@code done[i]} whether game
+     * {@code i} is won. An illegal action leaves its game unchanged with a reward of 0. Returns the number of
+     * illegal actions.
+     */
+    public int step(int[] actions, int[] rewards, boolean[] done) {
+        int illegal = 0;
+        for (int game = 0; game < games; game++) {
+            int before = scores[game];
+            if (!apply(game, actions[game])) {
+                illegal++;
+            }
+            rewards[game] = scores[game] - before;
+            done[game] = won[game];
+        }
+        return illegal;
+    }
+
+    /** Plays {@code move} in {@code game}, as {@link GameEngine#applyMove} would; returns false if it is illegal. */
+    public boolean apply(int game, int move) {
+        switch (Move.kind(move)) {
+            case Move.DRAW:
+                return draw(game);
+            case Move.TRANSFER:
+                return transfer(game, Move.from(move), Move.start(move), Move.to(move));
+            case Move.FLIP: {
+                int pile = Move.from(move);
+                if (!isTableau(pile)) {
+                    return false;
+                }
+                int top = topOffset(game, pile);
+                if (top < 0 || (cards[top] & FACE_UP) != 0) {
+                    return false;
+                }
+                cards[top] |= FACE_UP;
+                addScore(game, 5);
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean draw(int game) {
+        int base = game * PILE_COUNT;
+        if (sizes[base + GameState.STOCK] > 0) {
+            for (int i = 0; i < drawCount && sizes[base + GameState.STOCK] > 0; i++) {
+                push(game, GameState.WASTE, (byte) (pop(game, GameState.STOCK) | FACE_UP));
+            }
+            return true;
+        }
+        if (sizes[base + GameState.WASTE] > 0) {
+            while (sizes[base + GameState.WASTE] > 0) {
+                push(game, GameState.STOCK, (byte) (pop(game, GameState.WASTE) & ~FACE_UP));
+            }
+            addScore(game, -100);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean transfer(int game, int from, int start, int to) {
+        if (from >= PILE_COUNT || to >= PILE_COUNT || from == to || from == GameState.STOCK) {
+            return false;
+        }
+        int fromSize = pileSize(game, from);
+        if (start >= fromSize || (!isTableau(from) && start != fromSize - 1)) {
+            return false;
+        }
+        for (int i = start; i < fromSize; i++) {
+            if ((card(game, from, i) & FACE_UP) == 0) {
+                return false;
+            }
+        }
+        int count = fromSize - start;
+        int first = card(game, from, start) & 0x7f;
+        if (isFoundation(to)) {
+            if (count != 1 || !canPlaceOnFoundation(game, to, first)) {
+                return false;
+            }
+        } else if (isTableau(to)) {
+            if (!canPlaceOnTableau(game, to, first)) {
+                return false;
+            }
+        } else {
+            return false;
+        }
+        int toSlot = game * PILE_COUNT + to;
+        System.arraycopy(cards, (game * PILE_COUNT + from) * PILE_CAPACITY + start, cards,
+            toSlot * PILE_CAPACITY + sizes[toSlot], count);
+        sizes[game * PILE_COUNT + from] = start;
+        sizes[toSlot] += count;
+        if (isFoundation(to)) {
+            addScore(game, 10);
+        } else if (from == GameState.WASTE) {
+            addScore(game, 5);
+        } else if (isFoundation(from)) {
+            addScore(game, -15);
+        }
+        int base = game * PILE_COUNT;
+        won[game] = sizes[base + 2] + sizes[base + 3] + sizes[base + 4] + sizes[base + 5] == 52;
+        if (isTableau(from)) {
+            int top = topOffset(game, from);
+            if (top >= 0 && (cards[top] & FACE_UP) == 0) {
+                cards[top] |= FACE_UP;
+                addScore(game, 5);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes every legal move of {@code game} to {@code out} from {@code offset}, in {@link GameRules#collectMoves}
+     * order, and returns the number written. {@code out} needs room for 256 moves.
+     */
+    public int collectMoves(int game, int[] out, int offset) {
+        // Every pile accepts a known set of cards, so each candidate is checked with a single bit test.
+        long anyFoundation = 0L;
+        long anyTableau = 0L;
+        for (int pile = GameState.FIRST_FOUNDATION; pile < PILE_COUNT; pile++) {
+            int top = topOffset(game, pile);
+            long mask;
+            if (isFoundation(pile)) {
+                mask = top < 0 ? ACES : nextOnFoundation(cards[top] & 0x7f);
+                anyFoundation |= mask;
+            } else {
+                mask = top < 0 ? KINGS : (cards[top] & FACE_UP) == 0 ? 0L : childrenOf(cards[top] & 0x7f);
+                anyTableau |= mask;
+            }
+            accepts[pile] = mask;
+        }
+
+        int n = offset;
+        if (pileSize(game, GameState.STOCK) > 0 || pileSize(game, GameState.WASTE) > 0) {
+            out[n++] = Move.draw();
+        }
+        int wasteSize = pileSize(game, GameState.WASTE);
+        if (wasteSize > 0) {
+            n = collectMovesFrom(game, GameState.WASTE, wasteSize - 1, anyFoundation, anyTableau, out, n);
+        }
+        for (int pile = GameState.FIRST_TABLEAU; pile < PILE_COUNT; pile++) {
+            int size = pileSize(game, pile);
+            if (size == 0) {
+                continue;
+            }
+            if ((card(game, pile, size - 1) & FACE_UP) == 0) {
+                out[n++] = Move.flip(pile);
+                continue;
+            }
+            for (int start = size - 1; start >= 0 && (card(game, pile, start) & FACE_UP) != 0; start--) {
+                n = collectMovesFrom(game, pile, start, anyFoundation, anyTableau, out, n);
+            }
+        }
+        for (int pile = GameState.FIRST_FOUNDATION; pile < GameState.FIRST_TABLEAU; pile++) {
+            int size = pileSize(game, pile);
+            if (size > 0) {
+                n = collectMovesFrom(game, pile, size - 1, 0L, anyTableau, out, n);
+            }
+        }
+        return n - offset;
+    }
+
+    private int collectMovesFrom(int game, int from, int start, long anyFoundation, long anyTableau, int[] out, int n) {
+        long bit = 1L << (card(game, from, start) & 0x7f);
+        if ((anyFoundation & bit) != 0 && start == pileSize(game, from) - 1) {
+            for (int to = GameState.FIRST_FOUNDATION; to < GameState.FIRST_TABLEAU; to++) {
+                if ((accepts[to] & bit) != 0) {
+                    out[n++] = Move.transfer(from, start, to);
+                    break;
+                }
+            }
+        }
+        if ((anyTableau & bit) == 0) {
+            return n;
+        }
+        boolean emptyOffered = start == 0 && isTableau(from);
+        for (int to = GameState.FIRST_TABLEAU; to < PILE_COUNT; to++) {
+            if (to == from) {
+                continue;
+            }
+            if (pileSize(game, to) == 0) {
+                if (emptyOffered) {
+                    continue;
+                }
+                emptyOffered = true;
+            }
+            if ((accepts[to] & bit) != 0) {
+                out[n++] = Move.transfer(from, start, to);
+            }
+        }
+        return n;
+    }
+
+    /** The one card that may follow {@code top} on a foundation. */
+    private static long nextOnFoundation(int top) {
+        return top % 13 == 12 ? 0L : 1L << (top + 1);
+    }
+
+    /** The two cards that may be built on a face-up tableau {@code top}. */
+    private static long childrenOf(int top) {
+        int rank = top % 13;
+        if (rank == 0) {
+            return 0L;
+        }
+        int oppositeA = isRed(top) ? 0 : 1;
+        int oppositeB = isRed(top) ? 3 : 2;
+        return 1L << (oppositeA * 13 + rank - 1) | 1L << (oppositeB * 13 + rank - 1);
+    }
+
+    private boolean canPlaceOnFoundation(int game, int pile, int card) {
+        int top = topOffset(game, pile);
+        return ((top < 0 ? ACES : nextOnFoundation(cards[top] & 0x7f)) & 1L << card) != 0;
+    }
+
+    private boolean canPlaceOnTableau(int game, int pile, int card) {
+        int top = topOffset(game, pile);
+        if (top < 0) {
+            return card % 13 == 12;
+        }
+        return (cards[top] & FACE_UP) != 0 && (childrenOf(cards[top] & 0x7f) & 1L << card) != 0;
+    }
+
+    private static boolean isRed(int card) {
+        int suit = card / 13;
+        return suit == 1 || suit == 2;
+    }
+
+    private static boolean isFoundation(int pile) {
+        return pile >= GameState.FIRST_FOUNDATION && pile < GameState.FIRST_TABLEAU;
+    }
+
+    private static boolean isTableau(int pile) {
+        return pile >= GameState.FIRST_TABLEAU && pile < PILE_COUNT;
+    }
+
+    /** Offset of the top card of {@code pile} in the card array, or -1 if it is empty. */
+    private int topOffset(int game, int pile) {
+        int slot = game * PILE_COUNT + pile;
+        return sizes[slot] == 0 ? -1 : slot * PILE_CAPACITY + sizes[slot] - 1;
+    }
+
+    private void push(int game, int pile, byte card) {
+        int slot = game * PILE_COUNT + pile;
+        cards[slot * PILE_CAPACITY + sizes[slot]++] = card;
+    }
+
+    private byte pop(int game, int pile) {
+        int slot = game * PILE_COUNT + pile;
+        return cards[slot * PILE_CAPACITY + --sizes[slot]];
+    }
+
+    private void addScore(int game, int delta) {
+        scores[game] = Math.max(0, scores[game] + delta);
+    }
+}
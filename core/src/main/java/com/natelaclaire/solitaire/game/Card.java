@@ -10,10 +10,16 @@ public class Card {
         this.rank = rank;
     }
 
+    /** Returns a dense 0-51 index for this card, ordered by suit then rank. */
+    public int index() {
+        return suit.ordinal() * 13 + rank - 1;
+    }
+
     public boolean isRed() {
         return suit == Suit.HEARTS || suit == Suit.DIAMONDS;
     }
 
+    /** Returns the art file name, without extension, for this card in front set {@code prefix}. Allocates. */
     public String assetKey(String prefix) {
         String suitName;
         switch (suit) {
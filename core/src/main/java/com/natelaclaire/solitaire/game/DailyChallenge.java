@@ -0,0 +1,51 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/** Derives the deal of the day and checks recorded daily games by replaying them. */
+public final class DailyChallenge {
+    private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
+    private DailyChallenge() {}
+
+    /** Returns today's challenge day: whole days since the epoch in UTC, so everyone shares the same deal. */
+    public static int today() {
+        return (int) (TimeUtils.millis() / DAY_MILLIS);
+    }
+
+    public static long seedFor(int day) {
+        long h = (day + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 31)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 29);
+    }
+
+    /** Picks the day's deal from the medium bucket of {@code index} so it is known to be winnable. */
+    public static long seedFor(int day, DifficultyIndex index) {
+        if (index == null || index.count(Difficulty.MEDIUM) == 0) {
+            return seedFor(day);
+        }
+        int pick = (int) ((seedFor(day) & 0x7fffffffL) % index.count(Difficulty.MEDIUM));
+        return index.seedAt(Difficulty.MEDIUM, pick);
+    }
+
+    /**
+     * Replays {@code moves} on a fresh deal of {@code seed} without any rendering and returns the score
+     * {@link GameEngine} reports, or -1 if the input is malformed, a move is illegal or the replay does not end in a
+     * win.
+     */
+    public static int replayScore(long seed, int drawCount, IntArray moves) {
+        if (moves == null || (drawCount != 1 && drawCount != 3)) {
+            return -1;
+        }
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(drawCount);
+        engine.newGame(seed);
+        for (int i = 0; i < moves.size; i++) {
+            if (engine.isWin() || !engine.applyMove(moves.get(i))) {
+                return -1;
+            }
+        }
+        return engine.isWin() ? engine.getScore() : -1;
+    }
+}
@@ -0,0 +1,7 @@
+package com.natelaclaire.solitaire.game;
+
+public enum Difficulty {
+    EASY,
+    MEDIUM,
+    HARD
+}
@@ -0,0 +1,77 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.RandomXS128;
+
+/**
+ * Reads the deal index written by {@code DealRatingPipeline}. Deals are sorted by rating and split into one
+ * contiguous bucket per {@link Difficulty}, so picking the n-th deal of a bucket is a constant-time read.
+ *
+ * <p>Layout (big-endian): magic, version, base seed, bucket count, bucket start offsets (bucket count + 1 ints),
+ * then one {@value #ENTRY_SIZE}-byte entry per deal: seed minus base seed (int) and rating 0-1000 (short).
+ */
+public class DifficultyIndex {
+    public static final int MAGIC = 0x53444958;
+    public static final int VERSION = 1;
+    public static final int ENTRY_SIZE = 6;
+
+    private final byte[] data;
+    private final long baseSeed;
+    private final int[] bucketStarts;
+    private final int entriesOffset;
+
+    public DifficultyIndex(byte[] data) {
+        this.data = data;
+        if (readInt(0) != MAGIC || readInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a difficulty index");
+        }
+        baseSeed = (long) readInt(8) << 32 | (readInt(12) & 0xffffffffL);
+        int buckets = readInt(16);
+        if (buckets != Difficulty.values().length) {
+            throw new IllegalArgumentException("Unexpected bucket count: " + buckets);
+        }
+        bucketStarts = new int[buckets + 1];
+        for (int i = 0; i <= buckets; i++) {
+            bucketStarts[i] = readInt(20 + i * 4);
+        }
+        entriesOffset = headerSize(buckets);
+    }
+
+    public static DifficultyIndex load(FileHandle file) {
+        return new DifficultyIndex(file.readBytes());
+    }
+
+    public static int headerSize(int buckets) {
+        return 20 + (buckets + 1) * 4;
+    }
+
+    public int count(Difficulty difficulty) {
+        return bucketStarts[difficulty.ordinal() + 1] - bucketStarts[difficulty.ordinal()];
+    }
+
+    /** Returns the seed of the {@code index}-th deal in the bucket, easiest first. */
+    public long seedAt(Difficulty difficulty, int index) {
+        return baseSeed + (readInt(entryOffset(difficulty, index)) & 0xffffffffL);
+    }
+
+    public int ratingAt(Difficulty difficulty, int index) {
+        int offset = entryOffset(difficulty, index) + 4;
+        return (data[offset] & 0xff) << 8 | (data[offset + 1] & 0xff);
+    }
+
+    public long randomSeed(Difficulty difficulty, RandomXS128 random) {
+        return seedAt(difficulty, random.nextInt(count(difficulty)));
+    }
+
+    private int entryOffset(Difficulty difficulty, int index) {
+        if (index < 0 || index >= count(difficulty)) {
+            throw new IndexOutOfBoundsException("index " + index + " out of " + count(difficulty));
+        }
+        return entriesOffset + (bucketStarts[difficulty.ordinal()] + index) * ENTRY_SIZE;
+    }
+
+    private int readInt(int offset) {
+        return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16 | (data[offset + 2] & 0xff) << 8
+            | (data[offset + 3] & 0xff);
+    }
+}
@@ -1,11 +1,29 @@
 package com.natelaclaire.solitaire.game;
 
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.SnapshotArray;
 
 public class GameEngine {
     private GameState state;
-    private final Array<GameState> undoStack = new Array<>();
+    private final UndoTree undoTree = new UndoTree();
+    /** The undo tree node for the current position. */
+    private int node;
+    /** Set while {@link #node}'s position is still being changed and has not been captured into the tree. */
+    private boolean nodeOpen;
+    private final IntArray moves = new IntArray();
+    private final IntArray autoMoves = new IntArray(52);
+    private final int[] autoFoundations = new int[4];
+    private final int[] autoRanks = new int[4];
+    private final int[] autoTops = new int[8];
     private int drawCount = 3;
+    private final SnapshotArray<GameListener> listeners = new SnapshotArray<>(true, 4, GameListener[]::new);
+    private final Pool<GameEvent> eventPool = new Pool<GameEvent>(4) {
+        @Override
+        protected GameEvent newObject() {
+            return new GameEvent();
+        }
+    };
 
     public GameEngine() {
         newGame();
@@ -13,19 +31,54 @@ public class GameEngine {
 
     public void newGame() {
         state = GameState.newGame();
-        undoStack.clear();
+        resetHistory();
+        emit(GameEvent.Type.RESET);
+    }
+
+    public void newGame(long seed) {
+        state = GameState.newGame(seed);
+        resetHistory();
+        emit(GameEvent.Type.RESET);
+    }
+
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(GameListener listener) {
+        listeners.removeValue(listener, true);
     }
 
     public GameState getState() {
         return state;
     }
 
+    /** Continues play from {@code state}; the undo history is cleared. */
+    public void setState(GameState state) {
+        this.state = state;
+        resetHistory();
+        emit(GameEvent.Type.RESET);
+    }
+
+    /**
+     * Returns the moves played through {@link #applyMove} since the deal, oldest first. Undone moves are dropped,
+     * so replaying the list on {@code GameState.newGame(seed)} reproduces the current position and score, as long
+     * as the draw count did not change along the way.
+     */
+    public IntArray getMoves() {
+        return moves;
+    }
+
     public int getDrawCount() {
         return drawCount;
     }
 
     public void setDrawCount(int drawCount) {
+        if (drawCount == this.drawCount) {
+            return;
+        }
         this.drawCount = drawCount;
+        emitCards(GameEvent.Type.DRAW_COUNT_CHANGED, -1, 0, -1, drawCount);
     }
 
     public boolean isWin() {
@@ -36,25 +89,31 @@ public class GameEngine {
         return state.score;
     }
 
-    public void drawFromStock() {
+    public boolean drawFromStock() {
         if (state.stock.cards.size > 0) {
             pushUndoState();
-            for (int i = 0; i < drawCount && state.stock.cards.size > 0; i++) {
+            int count = 0;
+            for (; count < drawCount && state.stock.cards.size > 0; count++) {
                 Card card = state.stock.cards.pop();
                 card.faceUp = true;
                 state.waste.cards.add(card);
             }
-            return;
+            emitCards(GameEvent.Type.DRAW, GameState.STOCK, 0, GameState.WASTE, count);
+            return true;
         }
         if (state.waste.cards.size > 0) {
             pushUndoState();
+            int count = state.waste.cards.size;
             while (state.waste.cards.size > 0) {
                 Card card = state.waste.cards.pop();
                 card.faceUp = false;
                 state.stock.cards.add(card);
             }
+            emitCards(GameEvent.Type.RECYCLE, GameState.WASTE, 0, GameState.STOCK, count);
             addScore(-100);
+            return true;
         }
+        return false;
     }
 
     public boolean flipTopIfNeeded(Pile pile, int index) {
@@ -70,56 +129,50 @@ public class GameEngine {
         }
         pushUndoState();
         card.faceUp = true;
+        emitFlip(pile, index);
         addScore(5);
         return true;
     }
 
+    /**
+     * Moves the cards of {@code from} from {@code startIndex} up onto {@code to}, if the rules allow it: only the
+     * top card of the waste or a foundation may move, only face-up cards may move, and nothing moves out of the
+     * stock.
+     */
     public boolean tryMove(Pile from, int startIndex, Pile to) {
-        if (from == null || to == null) {
+        if (from == null || to == null || from == to) {
             return false;
         }
         if (startIndex < 0 || startIndex >= from.cards.size) {
             return false;
         }
-        Array<Card> moving = new Array<>();
-        for (int i = startIndex; i < from.cards.size; i++) {
-            moving.add(from.cards.get(i));
-        }
-        if (moving.size == 0) {
+        if (from.type == PileType.STOCK || (from.type != PileType.TABLEAU && startIndex != from.cards.size - 1)) {
             return false;
         }
-
-        if (to.type == PileType.FOUNDATION) {
-            if (moving.size != 1) {
-                return false;
-            }
-            Card card = moving.first();
-            if (!GameRules.canPlaceOnFoundation(to, card)) {
+        for (int i = startIndex; i < from.cards.size; i++) {
+            if (!from.cards.get(i).faceUp) {
                 return false;
             }
-            pushUndoState();
-            removeFromPile(from, startIndex);
-            to.cards.add(card);
-            applyMoveScore(from.type, to.type);
-            checkWinState();
-            return true;
         }
+        int count = from.cards.size - startIndex;
+        Card first = from.cards.get(startIndex);
 
-        if (to.type == PileType.TABLEAU) {
-            if (!GameRules.canPlaceOnTableau(to, moving.first())) {
+        if (to.type == PileType.FOUNDATION) {
+            if (count != 1 || !GameRules.canPlaceOnFoundation(to, first)) {
                 return false;
             }
-            pushUndoState();
-            removeFromPile(from, startIndex);
-            for (Card card : moving) {
-                to.cards.add(card);
-            }
-            applyMoveScore(from.type, to.type);
-            checkWinState();
-            return true;
+        } else if (to.type != PileType.TABLEAU || !GameRules.canPlaceOnTableau(to, first)) {
+            return false;
         }
-
-        return false;
+        pushUndoState();
+        for (int i = startIndex; i < from.cards.size; i++) {
+            to.cards.add(from.cards.get(i));
+        }
+        removeFromPile(from, startIndex);
+        emitMove(from, startIndex, to, count);
+        applyMoveScore(from.type, to.type);
+        checkWinState();
+        return true;
     }
 
     public boolean revealTopAfterMove(Pile pile) {
@@ -134,19 +187,157 @@ public class GameEngine {
             return false;
         }
         top.faceUp = true;
+        emitFlip(pile, pile.cards.size - 1);
         addScore(5);
         return true;
     }
 
-    public void undoLast() {
-        if (undoStack.size == 0) {
+    /**
+     * Plays a {@link Move}-encoded action under the same rules {@code InputController} enforces, and records it.
+     * Returns false, leaving the game unchanged, for an illegal move or one that names no pile.
+     */
+    public boolean applyMove(int move) {
+        if (!playMove(move)) {
+            return false;
+        }
+        moves.add(move);
+        int parent = undoTree.getParent(node);
+        int existing = undoTree.findChild(parent, move, drawCount);
+        if (existing != UndoTree.NONE) {
+            // Replaying a move that was undone earlier; the branch it started is kept rather than duplicated.
+            undoTree.removeLast(node);
+            node = existing;
+            nodeOpen = false;
+        } else {
+            undoTree.setMove(node, move);
+        }
+        if (listeners.size > 0) {
+            GameEvent event = eventPool.obtain();
+            event.type = GameEvent.Type.MOVE_PLAYED;
+            event.move = move;
+            event.score = state.score;
+            dispatch(event);
+        }
+        return true;
+    }
+
+    private boolean playMove(int move) {
+        if (Move.from(move) >= GameState.PILE_COUNT || Move.to(move) >= GameState.PILE_COUNT) {
+            return false;
+        }
+        switch (Move.kind(move)) {
+            case Move.DRAW:
+                return drawFromStock();
+            case Move.TRANSFER: {
+                Pile from = state.pile(Move.from(move));
+                if (!tryMove(from, Move.start(move), state.pile(Move.to(move)))) {
+                    return false;
+                }
+                revealTopAfterMove(from);
+                return true;
+            }
+            case Move.FLIP: {
+                Pile pile = state.pile(Move.from(move));
+                return pile.cards.size > 0 && flipTopIfNeeded(pile, pile.cards.size - 1);
+            }
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Sends cards to the foundations: every card that can go when {@code safeOnly} is false, otherwise only those
+     * {@link GameRules#isSafeFoundationMove} allows. The cascade is computed up front by
+     * {@link GameRules#collectAutoPlay} and each card is recorded as its own move. Returns the number of cards sent.
+     */
+    public int autoPlay(boolean safeOnly) {
+        autoMoves.clear();
+        GameRules.collectAutoPlay(state, safeOnly, autoFoundations, autoRanks, autoTops, autoMoves);
+        int played = 0;
+        for (int i = 0; i < autoMoves.size; i++) {
+            if (!applyMove(autoMoves.get(i))) {
+                break;
+            }
+            played++;
+        }
+        return played;
+    }
+
+    /** Finishes the game if {@link GameRules#canAutoComplete} allows it; returns true if it was won that way. */
+    public boolean autoComplete() {
+        if (state.winState || !GameRules.canAutoComplete(state)) {
+            return false;
+        }
+        autoPlay(false);
+        return state.winState;
+    }
+
+    /** Steps back to the parent position in the {@link UndoTree}; the position undone stays in the tree. */
+    public boolean undoLast() {
+        int parent = undoTree.getParent(node);
+        if (parent == UndoTree.NONE) {
+            return false;
+        }
+        closeNode();
+        if (undoTree.getMove(node) != Move.NONE && moves.size > 0) {
+            moves.pop();
+        }
+        node = parent;
+        state = undoTree.toState(node, state);
+        emit(GameEvent.Type.UNDO);
+        return true;
+    }
+
+    /**
+     * Every position played in this game, including lines that were undone and replaced. The tree is only
+     * changed by the engine; use {@link #jumpTo} to move around in it.
+     */
+    public UndoTree getUndoTree() {
+        closeNode();
+        return undoTree;
+    }
+
+    public int getCurrentNode() {
+        return node;
+    }
+
+    /**
+     * Makes {@code target}, any node of the {@link UndoTree}, the current position. The position is rebuilt from
+     * the tree directly, so the cost does not depend on how far apart the two nodes are.
+     */
+    public void jumpTo(int target) {
+        if (target < 0 || target >= undoTree.size()) {
+            throw new IllegalArgumentException("No such undo tree node: " + target);
+        }
+        closeNode();
+        if (target == node) {
             return;
         }
-        state = undoStack.pop();
+        node = target;
+        state = undoTree.toState(node, state);
+        undoTree.pathMoves(node, moves);
+        emit(GameEvent.Type.JUMP);
     }
 
+    /** Opens a child node for the change about to be made; it is captured once the change is complete. */
     private void pushUndoState() {
-        undoStack.add(state.copy());
+        closeNode();
+        node = undoTree.addChild(node, drawCount);
+        nodeOpen = true;
+    }
+
+    private void closeNode() {
+        if (nodeOpen) {
+            undoTree.capture(node, state);
+            nodeOpen = false;
+        }
+    }
+
+    private void resetHistory() {
+        undoTree.reset(state);
+        node = UndoTree.ROOT;
+        nodeOpen = false;
+        moves.clear();
     }
 
     private void removeFromPile(Pile pile, int startIndex) {
@@ -170,7 +361,15 @@ public class GameEngine {
     }
 
     private void addScore(int delta) {
+        int before = state.score;
         state.score = Math.max(0, state.score + delta);
+        if (state.score != before && listeners.size > 0) {
+            GameEvent event = eventPool.obtain();
+            event.type = GameEvent.Type.SCORE_CHANGED;
+            event.scoreDelta = state.score - before;
+            event.score = state.score;
+            dispatch(event);
+        }
     }
 
     private void checkWinState() {
@@ -178,6 +377,54 @@ public class GameEngine {
         for (Pile foundation : state.foundations) {
             count += foundation.cards.size;
         }
+        boolean won = state.winState;
         state.winState = count == 52;
+        if (state.winState && !won) {
+            emit(GameEvent.Type.WIN);
+        }
+    }
+
+    private void emit(GameEvent.Type type) {
+        if (listeners.size > 0) {
+            GameEvent event = eventPool.obtain();
+            event.type = type;
+            event.score = state.score;
+            dispatch(event);
+        }
+    }
+
+    private void emitMove(Pile from, int start, Pile to, int count) {
+        if (listeners.size > 0) {
+            emitCards(GameEvent.Type.CARDS_MOVED, state.pileId(from), start, state.pileId(to), count);
+        }
+    }
+
+    private void emitFlip(Pile pile, int index) {
+        if (listeners.size > 0) {
+            emitCards(GameEvent.Type.CARD_FLIPPED, state.pileId(pile), index, -1, 1);
+        }
+    }
+
+    private void emitCards(GameEvent.Type type, int from, int start, int to, int count) {
+        if (listeners.size > 0) {
+            GameEvent event = eventPool.obtain();
+            event.type = type;
+            event.from = from;
+            event.start = start;
+            event.to = to;
+            event.count = count;
+            event.score = state.score;
+            dispatch(event);
+        }
+    }
+
+    /** Delivers {@code event} to every listener and returns it to the pool. */
+    private void dispatch(GameEvent event) {
+        GameListener[] items = listeners.begin();
+        for (int i = 0, n = listeners.size; i < n; i++) {
+            items[i].onGameEvent(this, event);
+        }
+        listeners.end();
+        eventPool.free(event);
     }
 }
@@ -0,0 +1,55 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Something that happened in a {@link GameEngine}, passed to each {@link GameListener}. Events are pooled and
+ * reused as soon as the listeners return, so listeners copy out what they need and never keep the event.
+ */
+public class GameEvent implements Pool.Poolable {
+    public enum Type {
+        /** {@link #count} cards moved from {@link #from} at {@link #start} onto {@link #to}. */
+        CARDS_MOVED,
+        /** The card at {@link #start} of {@link #from} was turned face up. */
+        CARD_FLIPPED,
+        /** {@link #count} cards were drawn from the stock onto the waste. */
+        DRAW,
+        /** The {@link #count} waste cards were turned back over onto the stock. */
+        RECYCLE,
+        /** The score changed by {@link #scoreDelta} to {@link #score}. */
+        SCORE_CHANGED,
+        WIN,
+        /** The last move was taken back; the whole state may have changed. */
+        UNDO,
+        /** A new game was dealt or a state was loaded; the whole state changed. */
+        RESET,
+        /** {@link GameEngine#applyMove} played {@link #move}; sent after the events describing its effects. */
+        MOVE_PLAYED,
+        /** The draw count changed to {@link #count}. */
+        DRAW_COUNT_CHANGED,
+        /** {@link GameEngine#jumpTo} moved to another position in the undo tree; the whole state changed. */
+        JUMP
+    }
+
+    public Type type;
+    /** Pile ids as used by {@link GameState#pile(int)}, or -1. */
+    public int from = -1;
+    public int to = -1;
+    public int start;
+    public int count;
+    public int scoreDelta;
+    public int score;
+    public int move;
+
+    @Override
+    public void reset() {
+        type = null;
+        from = -1;
+        to = -1;
+        start = 0;
+        count = 0;
+        scoreDelta = 0;
+        score = 0;
+        move = Move.NONE;
+    }
+}
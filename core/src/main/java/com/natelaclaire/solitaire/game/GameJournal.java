@@ -0,0 +1,15 @@
+package com.natelaclaire.solitaire.game;
+
+/**
+ * Keeps the game in progress safe across crashes. Registered as a listener on the engine, it records every change
+ * as it happens; on the next start {@link #restore} rebuilds the position and undo history.
+ */
+public interface GameJournal extends GameListener {
+    /** Replays the saved game into {@code engine}; returns false if there was nothing to restore. */
+    boolean restore(GameEngine engine);
+
+    /** Makes everything recorded so far durable, e.g. when the app is paused. */
+    void flush();
+
+    void close();
+}
@@ -0,0 +1,6 @@
+package com.natelaclaire.solitaire.game;
+
+/** Receives {@link GameEvent}s from a {@link GameEngine}, synchronously and in the order they happen. */
+public interface GameListener {
+    void onGameEvent(GameEngine engine, GameEvent event);
+}
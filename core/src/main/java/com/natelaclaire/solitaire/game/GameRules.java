@@ -1,5 +1,7 @@
 package com.natelaclaire.solitaire.game;
 
+import com.badlogic.gdx.utils.IntArray;
+
 public final class GameRules {
     private GameRules() {}
 
@@ -18,4 +20,166 @@ public final class GameRules {
         Card top = pile.cards.peek();
         return top.faceUp && top.isRed() != card.isRed() && card.rank == top.rank - 1;
     }
+
+    /**
+     * Appends every legal {@link Move} for {@code state} to {@code out} without allocating. Moves that only differ
+     * by which empty foundation or empty tableau slot they land on are reported once, for the first such slot.
+     */
+    public static void collectMoves(GameState state, IntArray out) {
+        if (state.stock.cards.size > 0 || state.waste.cards.size > 0) {
+            out.add(Move.draw());
+        }
+        if (state.waste.cards.size > 0) {
+            collectMovesFrom(state, GameState.WASTE, state.waste.cards.size - 1, out);
+        }
+        for (int i = 0; i < state.tableau.size; i++) {
+            int id = GameState.FIRST_TABLEAU + i;
+            Pile pile = state.tableau.get(i);
+            if (pile.cards.size == 0) {
+                continue;
+            }
+            if (!pile.cards.peek().faceUp) {
+                out.add(Move.flip(id));
+                continue;
+            }
+            for (int start = pile.cards.size - 1; start >= 0 && pile.cards.get(start).faceUp; start--) {
+                collectMovesFrom(state, id, start, out);
+            }
+        }
+        for (int i = 0; i < state.foundations.size; i++) {
+            Pile pile = state.foundations.get(i);
+            if (pile.cards.size > 0) {
+                collectMovesFrom(state, GameState.FIRST_FOUNDATION + i, pile.cards.size - 1, out);
+            }
+        }
+    }
+
+    /**
+     * Fills {@code out} (length 4, indexed by {@code Suit.ordinal()}) with the foundation pile id each suit goes to:
+     * the foundation already holding it, otherwise the next unused empty foundation in order.
+     */
+    public static void indexFoundations(GameState state, int[] out) {
+        for (int suit = 0; suit < 4; suit++) {
+            out[suit] = -1;
+        }
+        for (int i = 0; i < state.foundations.size; i++) {
+            Pile pile = state.foundations.get(i);
+            if (pile.cards.size > 0) {
+                out[pile.cards.peek().suit.ordinal()] = GameState.FIRST_FOUNDATION + i;
+            }
+        }
+        int next = 0;
+        for (int suit = 0; suit < 4; suit++) {
+            if (out[suit] >= 0) {
+                continue;
+            }
+            while (state.foundations.get(next).cards.size > 0) {
+                next++;
+            }
+            out[suit] = GameState.FIRST_FOUNDATION + next++;
+        }
+    }
+
+    /**
+     * A card can go home safely when it can never be needed as a tableau parent again: aces and twos always, and
+     * anything else once both foundations of the opposite colour have reached one rank below it.
+     * {@code foundationRanks} holds the top rank of each suit's foundation, 0 when empty.
+     */
+    public static boolean isSafeFoundationMove(Card card, int[] foundationRanks) {
+        if (card.rank <= 2) {
+            return true;
+        }
+        boolean red = card.isRed();
+        int oppositeA = red ? Suit.CLUBS.ordinal() : Suit.DIAMONDS.ordinal();
+        int oppositeB = red ? Suit.SPADES.ordinal() : Suit.HEARTS.ordinal();
+        return foundationRanks[oppositeA] >= card.rank - 1 && foundationRanks[oppositeB] >= card.rank - 1;
+    }
+
+    /** True once the stock and waste are empty and every tableau card is face up; the game can then finish itself. */
+    public static boolean canAutoComplete(GameState state) {
+        if (state.stock.cards.size > 0 || state.waste.cards.size > 0) {
+            return false;
+        }
+        for (Pile pile : state.tableau) {
+            for (int i = 0; i < pile.cards.size; i++) {
+                if (!pile.cards.get(i).faceUp) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends the whole cascade of waste and tableau cards that can go to the foundations, in playable order, as
+     * {@link Move} transfers. The cascade is worked out in one pass over per-suit ranks and per-pile tops without
+     * touching {@code state}; a face-down card uncovered on the way counts as turned over, as
+     * {@link GameEngine#applyMove} would do. With {@code safeOnly}, only cards that pass
+     * {@link #isSafeFoundationMove} are sent.
+     *
+     * @param foundations scratch of length 4 for the suit to foundation index
+     * @param ranks scratch of length 4 for the foundation ranks
+     * @param tops scratch of length 8: the next card of the waste and each tableau pile
+     */
+    public static void collectAutoPlay(GameState state, boolean safeOnly, int[] foundations, int[] ranks, int[] tops,
+                                       IntArray out) {
+        indexFoundations(state, foundations);
+        for (int suit = 0; suit < 4; suit++) {
+            ranks[suit] = state.pile(foundations[suit]).cards.size;
+        }
+        tops[0] = state.waste.cards.size - 1;
+        for (int i = 0; i < state.tableau.size; i++) {
+            tops[i + 1] = state.tableau.get(i).cards.size - 1;
+        }
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int source = 0; source <= state.tableau.size; source++) {
+                Pile pile = source == 0 ? state.waste : state.tableau.get(source - 1);
+                int id = source == 0 ? GameState.WASTE : GameState.FIRST_TABLEAU + source - 1;
+                // Each pile is drained as far as it goes before moving on, so one sweep usually finishes it.
+                while (tops[source] >= 0) {
+                    Card card = pile.cards.get(tops[source]);
+                    int suit = card.suit.ordinal();
+                    if (ranks[suit] != card.rank - 1 || (safeOnly && !isSafeFoundationMove(card, ranks))) {
+                        break;
+                    }
+                    out.add(Move.transfer(id, tops[source], foundations[suit]));
+                    ranks[suit]++;
+                    tops[source]--;
+                    progress = true;
+                }
+            }
+        }
+    }
+
+    private static void collectMovesFrom(GameState state, int fromId, int start, IntArray out) {
+        Pile from = state.pile(fromId);
+        Card card = from.cards.get(start);
+        if (start == from.cards.size - 1 && from.type != PileType.FOUNDATION) {
+            for (int i = 0; i < state.foundations.size; i++) {
+                if (canPlaceOnFoundation(state.foundations.get(i), card)) {
+                    out.add(Move.transfer(fromId, start, GameState.FIRST_FOUNDATION + i));
+                    break;
+                }
+            }
+        }
+        boolean emptyOffered = start == 0 && from.type == PileType.TABLEAU;
+        for (int i = 0; i < state.tableau.size; i++) {
+            int toId = GameState.FIRST_TABLEAU + i;
+            if (toId == fromId) {
+                continue;
+            }
+            Pile to = state.tableau.get(i);
+            if (to.cards.size == 0) {
+                if (emptyOffered) {
+                    continue;
+                }
+                emptyOffered = true;
+            }
+            if (canPlaceOnTableau(to, card)) {
+                out.add(Move.transfer(fromId, start, toId));
+            }
+        }
+    }
 }
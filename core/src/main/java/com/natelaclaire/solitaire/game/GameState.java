@@ -1,8 +1,17 @@
 package com.natelaclaire.solitaire.game;
 
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
 import com.badlogic.gdx.utils.Array;
 
 public class GameState {
+    public static final int STOCK = 0;
+    public static final int WASTE = 1;
+    public static final int FIRST_FOUNDATION = 2;
+    public static final int FIRST_TABLEAU = 6;
+    public static final int PILE_COUNT = 13;
+
+    public long seed;
     public Pile stock;
     public Pile waste;
     public Array<Pile> foundations;
@@ -11,7 +20,13 @@ public class GameState {
     public boolean winState;
 
     public static GameState newGame() {
+        return newGame(MathUtils.random.nextLong());
+    }
+
+    /** Deals the game identified by {@code seed}; the same seed always produces the same deal. */
+    public static GameState newGame(long seed) {
         GameState state = new GameState();
+        state.seed = seed;
         state.stock = new Pile(PileType.STOCK);
         state.waste = new Pile(PileType.WASTE);
         state.foundations = new Array<>();
@@ -24,7 +39,7 @@ public class GameState {
         }
 
         Array<Card> deck = createDeck();
-        deck.shuffle();
+        shuffle(deck, new RandomXS128(seed));
 
         for (int i = 0; i < 7; i++) {
             Pile pile = state.tableau.get(i);
@@ -56,8 +71,38 @@ public class GameState {
         return deck;
     }
 
+    private static void shuffle(Array<Card> deck, RandomXS128 random) {
+        for (int i = deck.size - 1; i > 0; i--) {
+            deck.swap(i, random.nextInt(i + 1));
+        }
+    }
+
+    /** Returns the pile with the given id (see {@link #STOCK}, {@link #FIRST_TABLEAU}, ...). */
+    public Pile pile(int id) {
+        if (id == STOCK) {
+            return stock;
+        }
+        if (id == WASTE) {
+            return waste;
+        }
+        if (id < FIRST_TABLEAU) {
+            return foundations.get(id - FIRST_FOUNDATION);
+        }
+        return tableau.get(id - FIRST_TABLEAU);
+    }
+
+    public int pileId(Pile pile) {
+        for (int id = 0; id < PILE_COUNT; id++) {
+            if (pile(id) == pile) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
     public GameState copy() {
         GameState state = new GameState();
+        state.seed = seed;
         state.score = score;
         state.winState = winState;
         state.stock = copyPile(stock);
@@ -0,0 +1,22 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/** Local store of the best daily challenge results. */
+public interface Leaderboard {
+    /** Returned by {@link #submit} for a valid result that scored too low to make the day's board. */
+    int NOT_RANKED = -1;
+    /** Returned by {@link #submit} when {@code seed} is not the day's deal or the moves do not reproduce the score. */
+    int REJECTED = -2;
+
+    /**
+     * Records a won daily game. Returns its rank for the day (0 is best), {@link #NOT_RANKED} or {@link #REJECTED}.
+     */
+    int submit(int day, long seed, int drawCount, int score, IntArray moves);
+
+    /** Sets the index daily deals are picked from, so submitted seeds can be checked against the day; may be null. */
+    void setDifficultyIndex(DifficultyIndex index);
+
+    /** Returns the best score recorded for {@code day}, or -1 if there is none. */
+    int bestScore(int day);
+}
@@ -0,0 +1,45 @@
+package com.natelaclaire.solitaire.game;
+
+/**
+ * Packs a player action into a single int so move lists can live in primitive buffers. Pile ids are the ones
+ * used by {@link GameState#pile(int)}.
+ */
+public final class Move {
+    public static final int NONE = 0;
+    /** Clicks the stock: draws cards, or recycles the waste when the stock is empty. */
+    public static final int DRAW = 1;
+    /** Moves the cards from {@code start} upwards onto another pile, then reveals the new top of the source. */
+    public static final int TRANSFER = 2;
+    /** Turns over a face-down tableau top. */
+    public static final int FLIP = 3;
+
+    private Move() {}
+
+    public static int draw() {
+        return DRAW << 24;
+    }
+
+    public static int transfer(int from, int start, int to) {
+        return TRANSFER << 24 | from << 16 | start << 8 | to;
+    }
+
+    public static int flip(int pile) {
+        return FLIP << 24 | pile << 16;
+    }
+
+    public static int kind(int move) {
+        return move >>> 24;
+    }
+
+    public static int from(int move) {
+        return (move >>> 16) & 0xff;
+    }
+
+    public static int start(int move) {
+        return (move >>> 8) & 0xff;
+    }
+
+    public static int to(int move) {
+        return move & 0xff;
+    }
+}
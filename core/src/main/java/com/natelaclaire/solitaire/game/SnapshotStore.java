@@ -0,0 +1,325 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.util.Arrays;
+
+/**
+ * Deduplicated storage for the positions of an {@link UndoTree}. Identical positions are stored once: cycling the
+ * stock back to where it was, or undoing and replaying, finds the existing entry instead of adding a copy.
+ *
+ * <p>Piles are interned by content, each as one byte per card ({@link Card#index()}, with {@link #FACE_UP} set for
+ * face-up cards), so a pile layout that shows up again anywhere in the game is the same array. A position records
+ * its score and only the piles that differ from a base position, usually the one it was played from; every
+ * {@link #KEYFRAME_INTERVAL}th position in a chain records all of its piles, so looking a pile up never walks more
+ * than that many positions.
+ *
+ * <p>Intended for one game at a time: {@link #clear} drops everything when a new game starts.
+ */
+public final class SnapshotStore {
+    public static final int FACE_UP = 0x80;
+    public static final int KEYFRAME_INTERVAL = 16;
+    private static final int PILE_COUNT = GameState.PILE_COUNT;
+    private static final int ALL_PILES = (1 << PILE_COUNT) - 1;
+    /** Rough size of an object header plus array length, for {@link #retainedBytes}. */
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private byte[][] piles = new byte[64][];
+    private int pileCount;
+    private int[] pileTable = new int[128];
+
+    private int size;
+    private int[] bases = new int[64];
+    /** Per position, the piles it records: bit {@code id} for pile {@code id}. */
+    private short[] masks = new short[64];
+    /** Per position, where its recorded pile ids start in {@link #changes}. */
+    private int[] offsets = new int[64];
+    private byte[] chainLengths = new byte[64];
+    private int[] scores = new int[64];
+    private boolean[] won = new boolean[64];
+    private int[] changes = new int[256];
+    private int changesSize;
+    private int[] stateTable = new int[128];
+
+    private final byte[] scratch = new byte[52];
+    private final int[] pileIds = new int[PILE_COUNT];
+    private final int[] otherIds = new int[PILE_COUNT];
+    private final Suit[] suits = Suit.values();
+
+    public SnapshotStore() {
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(piles, 0, pileCount, null);
+        Arrays.fill(pileTable, 0);
+        size = 0;
+        changesSize = 0;
+        Arrays.fill(stateTable, 0);
+        // Pile 0 is always the empty pile.
+        piles[0] = new byte[0];
+        pileCount = 1;
+        insert(pileTable, hashBytes(scratch, 0), 1);
+    }
+
+    /** Number of distinct positions stored. */
+    public int size() {
+        return size;
+    }
+
+    /** Number of distinct pile layouts stored. */
+    public int pileCount() {
+        return pileCount;
+    }
+
+    /** Estimated heap retained by the store, in bytes, including unused array capacity. */
+    public long retainedBytes() {
+        long bytes = ARRAY_OVERHEAD * 10L + piles.length * 4L + pileTable.length * 4L + stateTable.length * 4L;
+        for (int i = 0; i < pileCount; i++) {
+            bytes += (ARRAY_OVERHEAD + piles[i].length + 7) & ~7;
+        }
+        int capacity = bases.length;
+        bytes += capacity * (4L + 2L + 4L + 1L + 4L + 1L) + changes.length * 4L;
+        return bytes;
+    }
+
+    /**
+     * Returns the id of {@code state}, adding it if no identical position is stored yet. New positions are stored
+     * as a difference from {@code base}, or in full when {@code base} is -1 or ends a long chain.
+     */
+    public int add(GameState state, int base) {
+        for (int id = 0; id < PILE_COUNT; id++) {
+            pileIds[id] = internPile(state.pile(id));
+        }
+        int hash = hashState(pileIds, state.score, state.winState);
+
+        int mask = stateTable.length - 1;
+        for (int i = hash & mask; stateTable[i] != 0; i = (i + 1) & mask) {
+            int candidate = stateTable[i] - 1;
+            if (scores[candidate] == state.score && won[candidate] == state.winState && samePiles(candidate)) {
+                return candidate;
+            }
+        }
+
+        if (size == bases.length) {
+            growStates(size * 2);
+        }
+        int id = size++;
+        scores[id] = state.score;
+        won[id] = state.winState;
+        int recorded = ALL_PILES;
+        if (base >= 0 && chainLengths[base] + 1 < KEYFRAME_INTERVAL) {
+            resolve(base, otherIds);
+            recorded = 0;
+            for (int p = 0; p < PILE_COUNT; p++) {
+                if (otherIds[p] != pileIds[p]) {
+                    recorded |= 1 << p;
+                }
+            }
+            bases[id] = base;
+            chainLengths[id] = (byte) (chainLengths[base] + 1);
+        } else {
+            bases[id] = -1;
+            chainLengths[id] = 0;
+        }
+        masks[id] = (short) recorded;
+        offsets[id] = changesSize;
+        if (changesSize + PILE_COUNT > changes.length) {
+            int[] grown = new int[changes.length * 2];
+            System.arraycopy(changes, 0, grown, 0, changesSize);
+            changes = grown;
+        }
+        for (int p = 0; p < PILE_COUNT; p++) {
+            if ((recorded & 1 << p) != 0) {
+                changes[changesSize++] = pileIds[p];
+            }
+        }
+        if (size * 2 > stateTable.length) {
+            stateTable = rehashStates(stateTable.length * 2);
+        } else {
+            insert(stateTable, hash, id + 1);
+        }
+        return id;
+    }
+
+    public int getScore(int id) {
+        return scores[id];
+    }
+
+    public boolean isWon(int id) {
+        return won[id];
+    }
+
+    /** Fills {@code out} with the interned pile ids of position {@code id}, indexed by pile id. */
+    void resolve(int id, int[] out) {
+        int missing = ALL_PILES;
+        for (int s = id; missing != 0; s = bases[s]) {
+            int recorded = masks[s];
+            int offset = offsets[s];
+            for (int p = 0; p < PILE_COUNT; p++) {
+                if ((recorded & 1 << p) != 0) {
+                    if ((missing & 1 << p) != 0) {
+                        out[p] = changes[offset];
+                        missing &= ~(1 << p);
+                    }
+                    offset++;
+                }
+            }
+        }
+    }
+
+    /** Builds a fresh {@link GameState} for position {@code id}; pile positions are copied from {@code layout}. */
+    GameState toState(int id, GameState layout) {
+        resolve(id, otherIds);
+        GameState state = new GameState();
+        state.seed = layout.seed;
+        state.score = scores[id];
+        state.winState = won[id];
+        state.stock = decode(otherIds[GameState.STOCK], layout.stock);
+        state.waste = decode(otherIds[GameState.WASTE], layout.waste);
+        state.foundations = new Array<>(4);
+        for (int i = 0; i < 4; i++) {
+            state.foundations.add(decode(otherIds[GameState.FIRST_FOUNDATION + i], layout.foundations.get(i)));
+        }
+        state.tableau = new Array<>(7);
+        for (int i = 0; i < 7; i++) {
+            state.tableau.add(decode(otherIds[GameState.FIRST_TABLEAU + i], layout.tableau.get(i)));
+        }
+        return state;
+    }
+
+    private Pile decode(int pileId, Pile layout) {
+        Pile pile = new Pile(layout.type);
+        pile.x = layout.x;
+        pile.y = layout.y;
+        byte[] cards = piles[pileId];
+        pile.cards.ensureCapacity(cards.length);
+        for (byte value : cards) {
+            int index = value & 0x7f;
+            Card card = new Card(suits[index / 13], index % 13 + 1);
+            card.faceUp = (value & FACE_UP) != 0;
+            pile.cards.add(card);
+        }
+        return pile;
+    }
+
+    private boolean samePiles(int candidate) {
+        resolve(candidate, otherIds);
+        for (int p = 0; p < PILE_COUNT; p++) {
+            if (otherIds[p] != pileIds[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the id of the stored layout equal to {@code pile}, storing a copy first if there is none. */
+    private int internPile(Pile pile) {
+        int length = pile.cards.size;
+        for (int i = 0; i < length; i++) {
+            Card card = pile.cards.get(i);
+            scratch[i] = (byte) (card.index() | (card.faceUp ? FACE_UP : 0));
+        }
+        int hash = hashBytes(scratch, length);
+        int mask = pileTable.length - 1;
+        for (int i = hash & mask; pileTable[i] != 0; i = (i + 1) & mask) {
+            int candidate = pileTable[i] - 1;
+            if (sameBytes(piles[candidate], length)) {
+                return candidate;
+            }
+        }
+        byte[] copy = new byte[length];
+        System.arraycopy(scratch, 0, copy, 0, length);
+        if (pileCount == piles.length) {
+            byte[][] grown = new byte[pileCount * 2][];
+            System.arraycopy(piles, 0, grown, 0, pileCount);
+            piles = grown;
+        }
+        piles[pileCount++] = copy;
+        if (pileCount * 2 > pileTable.length) {
+            pileTable = rehashPiles(pileTable.length * 2);
+        } else {
+            insert(pileTable, hash, pileCount);
+        }
+        return pileCount - 1;
+    }
+
+    private boolean sameBytes(byte[] stored, int length) {
+        if (stored.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (stored[i] != scratch[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hashState(int[] ids, int score, boolean won) {
+        int hash = 0x2545F491;
+        for (int p = 0; p < PILE_COUNT; p++) {
+            hash = (hash ^ ids[p]) * 0x9E3779B1;
+        }
+        hash = (hash ^ score) * 0x9E3779B1 ^ (won ? 1 : 0);
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int hashBytes(byte[] bytes, int length) {
+        int hash = 0x811C9DC5 ^ length;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ bytes[i]) * 0x01000193;
+        }
+        return hash ^ (hash >>> 15);
+    }
+
+    /** Stores {@code value} (an id plus one, so that zero means empty) at the first free slot for {@code hash}. */
+    private static void insert(int[] table, int hash, int value) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = value;
+    }
+
+    private int[] rehashPiles(int capacity) {
+        int[] table = new int[capacity];
+        for (int i = 0; i < pileCount; i++) {
+            byte[] pile = piles[i];
+            insert(table, hashBytes(pile, pile.length), i + 1);
+        }
+        return table;
+    }
+
+    private int[] rehashStates(int capacity) {
+        int[] table = new int[capacity];
+        int[] ids = new int[PILE_COUNT];
+        for (int s = 0; s < size; s++) {
+            resolve(s, ids);
+            insert(table, hashState(ids, scores[s], won[s]), s + 1);
+        }
+        return table;
+    }
+
+    private void growStates(int capacity) {
+        bases = copy(bases, capacity);
+        offsets = copy(offsets, capacity);
+        scores = copy(scores, capacity);
+        short[] newMasks = new short[capacity];
+        System.arraycopy(masks, 0, newMasks, 0, size);
+        masks = newMasks;
+        byte[] newChainLengths = new byte[capacity];
+        System.arraycopy(chainLengths, 0, newChainLengths, 0, size);
+        chainLengths = newChainLengths;
+        boolean[] newWon = new boolean[capacity];
+        System.arraycopy(won, 0, newWon, 0, size);
+        won = newWon;
+    }
+
+    private int[] copy(int[] source, int capacity) {
+        int[] out = new int[capacity];
+        System.arraycopy(source, 0, out, 0, size);
+        return out;
+    }
+}
@@ -0,0 +1,34 @@
+package com.natelaclaire.solitaire.game;
+
+/**
+ * Sink for gameplay telemetry. {@link #record} is called on the game thread during play and must return in
+ * nanoseconds without blocking or allocating; implementations drop records rather than wait.
+ */
+public interface Telemetry {
+    /** A move was played: {@code a} is the {@link GameEvent.Type} ordinal, {@code b} nanoseconds since the last one. */
+    int MOVE = 1;
+    /** A move was taken back: {@code a} is the number of moves left in the game. */
+    int UNDO = 2;
+    int SESSION_START = 3;
+    /** {@code a} is the session length in milliseconds. */
+    int SESSION_END = 4;
+    /** Frame statistics since the last one: {@code a} frames, {@code b} the slowest frame in nanoseconds. */
+    int FRAMES = 5;
+    /** Written by the sink itself: {@code a} is the total number of records dropped so far. */
+    int DROPPED = 6;
+
+    Telemetry NONE = new Telemetry() {
+        @Override
+        public void record(int type, long a, long b) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    void record(int type, long a, long b);
+
+    /** Writes out anything still pending and releases the sink; called once when the game shuts down. */
+    void close();
+}
@@ -0,0 +1,194 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Every position reached in a game, kept as a tree so that undoing and then playing something else starts a new
+ * branch instead of discarding the old line. Node 0 is the position the game started from; every other node is the
+ * position after its {@link #getMove move} was played from its {@link #getParent parent}.
+ *
+ * <p>Nodes are stored as parallel primitive arrays and refer to their position by id in a {@link SnapshotStore},
+ * which keeps each distinct position once, as the piles that differ from the one it was played from. Memory grows
+ * with the number of distinct positions rather than with tree size times state size, and any node can be turned
+ * back into a {@link GameState} directly, without replaying moves, however far it is from the current one.
+ */
+public class UndoTree {
+    public static final int ROOT = 0;
+    public static final int NONE = -1;
+
+    private final SnapshotStore store = new SnapshotStore();
+    private int size;
+    private int[] parents = new int[64];
+    private int[] moves = new int[64];
+    private int[] depths = new int[64];
+    private int[] firstChildren = new int[64];
+    private int[] nextSiblings = new int[64];
+    private byte[] drawCounts = new byte[64];
+    /** Per node, the {@link SnapshotStore} id of its position. */
+    private int[] positions = new int[64];
+
+    /** Drops every node and makes {@code state} the new root. */
+    public void reset(GameState state) {
+        store.clear();
+        size = 0;
+        addNode(NONE, Move.NONE, 0);
+        capture(ROOT, state);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public SnapshotStore getStore() {
+        return store;
+    }
+
+    /** Estimated heap retained by the tree and its positions, in bytes. */
+    public long retainedBytes() {
+        return store.retainedBytes() + parents.length * (4L * 6 + 1L);
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /** Returns the {@link Move} that led from the parent to {@code node}, or {@link Move#NONE} if not recorded. */
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    /** Returns the draw count the node's move was played with. */
+    public int getDrawCount(int node) {
+        return drawCounts[node];
+    }
+
+    public int getDepth(int node) {
+        return depths[node];
+    }
+
+    public int getScore(int node) {
+        return store.getScore(positions[node]);
+    }
+
+    /** Returns the {@link SnapshotStore} id of the node's position; equal ids mean equal positions. */
+    public int getPosition(int node) {
+        return positions[node];
+    }
+
+    /** Returns the most recently added child of {@code node}, or {@link #NONE}. */
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    /** Returns the child reached by playing {@code move} at {@code drawCount}, or {@link #NONE}. */
+    public int findChild(int node, int move, int drawCount) {
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) {
+            if (moves[child] == move && drawCounts[child] == drawCount && move != Move.NONE) {
+                return child;
+            }
+        }
+        return NONE;
+    }
+
+    /** Returns the deepest node that is an ancestor of both {@code a} and {@code b} (or one of them). */
+    public int commonAncestor(int a, int b) {
+        while (depths[a] > depths[b]) {
+            a = parents[a];
+        }
+        while (depths[b] > depths[a]) {
+            b = parents[b];
+        }
+        while (a != b) {
+            a = parents[a];
+            b = parents[b];
+        }
+        return a;
+    }
+
+    /** Replaces {@code out} with the recorded moves from the root to {@code node}, oldest first. */
+    public IntArray pathMoves(int node, IntArray out) {
+        out.clear();
+        for (int n = node; n != ROOT; n = parents[n]) {
+            if (moves[n] != Move.NONE) {
+                out.add(moves[n]);
+            }
+        }
+        out.reverse();
+        return out;
+    }
+
+    /** Adds a child of {@code parent}; its position is filled in later by {@link #capture}. */
+    int addChild(int parent, int drawCount) {
+        int node = addNode(parent, Move.NONE, drawCount);
+        positions[node] = positions[parent];
+        return node;
+    }
+
+    void setMove(int node, int move) {
+        moves[node] = move;
+    }
+
+    /**
+     * Removes {@code node}, which must be the last one added and have no children. Used when a move turns out to
+     * repeat an existing branch.
+     */
+    void removeLast(int node) {
+        if (node != size - 1 || firstChildren[node] != NONE) {
+            throw new IllegalStateException("Only the newest leaf can be removed");
+        }
+        int parent = parents[node];
+        firstChildren[parent] = nextSiblings[node];
+        size--;
+    }
+
+    /** Records {@code state} as the position of {@code node}. */
+    void capture(int node, GameState state) {
+        int parent = parents[node];
+        positions[node] = store.add(state, parent == NONE ? -1 : positions[parent]);
+    }
+
+    /** Builds a fresh {@link GameState} for {@code node}; pile positions are copied from {@code layout}. */
+    GameState toState(int node, GameState layout) {
+        return store.toState(positions[node], layout);
+    }
+
+    private int addNode(int parent, int move, int drawCount) {
+        if (size == parents.length) {
+            grow(size * 2);
+        }
+        int node = size++;
+        parents[node] = parent;
+        moves[node] = move;
+        drawCounts[node] = (byte) drawCount;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        depths[node] = parent == NONE ? 0 : depths[parent] + 1;
+        if (parent != NONE) {
+            nextSiblings[node] = firstChildren[parent];
+            firstChildren[parent] = node;
+        }
+        return node;
+    }
+
+    private void grow(int capacity) {
+        parents = copy(parents, capacity);
+        moves = copy(moves, capacity);
+        depths = copy(depths, capacity);
+        firstChildren = copy(firstChildren, capacity);
+        nextSiblings = copy(nextSiblings, capacity);
+        positions = copy(positions, capacity);
+        byte[] newDrawCounts = new byte[capacity];
+        System.arraycopy(drawCounts, 0, newDrawCounts, 0, size);
+        drawCounts = newDrawCounts;
+    }
+
+    private int[] copy(int[] source, int capacity) {
+        int[] out = new int[capacity];
+        System.arraycopy(source, 0, out, 0, size);
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.GameState;
+
+/**
+ * Cheap proof that a position can never be won, run before any search.
+ *
+ * <p>Every tableau card that sits directly on a face-down card (a "blocker") has to leave its column, either to
+ * the foundation or onto one of its two tableau parents, before the card under it can be reached. A blocker is
+ * stuck when each of those exits needs a card buried beneath a stuck blocker: its parents, or a lower card of its
+ * own suit. The analyzer starts with every non-king blocker marked stuck and releases any with an open exit
+ * until nothing changes; if any are still stuck, the cards under them can never reach the foundation. This covers
+ * a card buried under both of its parents as well as same-suit sequences in different columns blocking each other.
+ *
+ * <p>Moves never bury a card deeper or add blockers, so a position that passes stays clear for the rest of the
+ * game; checking once per search is enough. Instances reuse their buffers and allocate nothing per call.
+ */
+public class DeadEndAnalyzer {
+    private final SolverBoard board = new SolverBoard();
+    private final int[] column = new int[52];
+    private final int[] position = new int[52];
+    private final boolean[] stuck = new boolean[52];
+    /** Per column, the highest position of a stuck blocker; cards below it are buried. */
+    private final int[] buriedBelow = new int[SolverBoard.COLUMNS];
+
+    public boolean isDeadEnd(GameState state) {
+        board.load(state, 1);
+        return isDeadEnd(board);
+    }
+
+    boolean isDeadEnd(SolverBoard b) {
+        for (int card = 0; card < 52; card++) {
+            column[card] = -1;
+            stuck[card] = false;
+        }
+        int stuckCount = 0;
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            byte[] cards = b.columns[c];
+            for (int i = 0, n = b.columnSize[c]; i < n; i++) {
+                column[cards[i]] = c;
+                position[cards[i]] = i;
+            }
+            for (int i = 1, n = Math.min(b.hidden[c], b.columnSize[c] - 1); i <= n; i++) {
+                if (SolverBoard.rank(cards[i]) != 13) {
+                    stuck[cards[i]] = true;
+                    stuckCount++;
+                }
+            }
+        }
+
+        boolean changed = stuckCount > 0;
+        while (changed) {
+            changed = false;
+            updateBuried(b);
+            for (int card = 0; card < 52 && stuckCount > 0; card++) {
+                if (stuck[card] && hasExit(card)) {
+                    stuck[card] = false;
+                    stuckCount--;
+                    changed = true;
+                }
+            }
+        }
+        return stuckCount > 0;
+    }
+
+    private void updateBuried(SolverBoard b) {
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            buriedBelow[c] = 0;
+            byte[] cards = b.columns[c];
+            for (int i = Math.min(b.hidden[c], b.columnSize[c] - 1); i >= 1; i--) {
+                if (stuck[cards[i]]) {
+                    buriedBelow[c] = i;
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean hasExit(int card) {
+        int suit = SolverBoard.suit(card);
+        int rank = SolverBoard.rank(card);
+        boolean foundationOpen = true;
+        for (int lower = suit * 13; lower < card; lower++) {
+            if (isBuried(lower)) {
+                foundationOpen = false;
+                break;
+            }
+        }
+        if (foundationOpen) {
+            return true;
+        }
+        boolean red = SolverBoard.isRed(card);
+        int parentSuitA = red ? 0 : 1;
+        int parentSuitB = red ? 3 : 2;
+        return !isBuried(parentSuitA * 13 + rank) || !isBuried(parentSuitB * 13 + rank);
+    }
+
+    private boolean isBuried(int card) {
+        int c = column[card];
+        return c >= 0 && position[card] < buriedBelow[c];
+    }
+}
@@ -0,0 +1,76 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a {@link SolutionDatabase} from a {@link FileHandle}, synchronously. Each read opens the file and skips to
+ * the bytes it needs, which is a seek for local files and Android assets alike, so only the index and the
+ * requested chunks are ever read.
+ */
+public class FileSolutionSource implements SolutionSource {
+    private final FileHandle file;
+
+    public FileSolutionSource(FileHandle file) {
+        this.file = file;
+    }
+
+    @Override
+    public void loadIndex(Callback callback) {
+        byte[] header;
+        try {
+            header = read(0L, SolutionDatabase.HEADER_SIZE);
+        } catch (RuntimeException | IOException e) {
+            callback.failed(e);
+            return;
+        }
+        int dataStart = SolutionDatabase.readInt(header, SolutionDatabase.HEADER_SIZE - 4);
+        load(0L, dataStart, callback);
+    }
+
+    @Override
+    public void loadChunk(int chunk, long offset, int length, Callback callback) {
+        load(offset, length, callback);
+    }
+
+    private void load(long offset, int length, Callback callback) {
+        byte[] data;
+        try {
+            data = read(offset, length);
+        } catch (RuntimeException | IOException e) {
+            callback.failed(e);
+            return;
+        }
+        callback.loaded(data);
+    }
+
+    private byte[] read(long offset, int length) throws IOException {
+        byte[] data = new byte[length];
+        InputStream in = file.read();
+        try {
+            long skipped = 0;
+            while (skipped < offset) {
+                long n = in.skip(offset - skipped);
+                if (n <= 0) {
+                    throw new GdxRuntimeException("Solution database is truncated: " + file);
+                }
+                skipped += n;
+            }
+            int read = 0;
+            while (read < length) {
+                int n = in.read(data, read, length - read);
+                if (n < 0) {
+                    throw new GdxRuntimeException("Solution database is truncated: " + file);
+                }
+                read += n;
+            }
+        } finally {
+            StreamUtils.closeQuietly(in);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,76 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Net;
+import com.badlogic.gdx.net.HttpRequestBuilder;
+import com.badlogic.gdx.net.HttpStatus;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Fetches a {@link SolutionDatabase} over HTTP for the html build, where the database is too large to preload and
+ * there is no random file access. {@code SolutionDatabaseWriter} can split the database into {@code index.txt}
+ * and one {@code chunk-N.txt} per chunk, Base64-encoded because the browser backend only hands responses over as
+ * text; each lookup then downloads a single chunk. Results are delivered on the render thread.
+ */
+public class HttpSolutionSource implements SolutionSource {
+    private final String baseUrl;
+
+    /** @param baseUrl the URL of the directory holding the split files, ending in a slash */
+    public HttpSolutionSource(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public void loadIndex(Callback callback) {
+        fetch(baseUrl + "index.txt", callback);
+    }
+
+    @Override
+    public void loadChunk(int chunk, long offset, int length, Callback callback) {
+        fetch(baseUrl + "chunk-" + chunk + ".txt", callback);
+    }
+
+    private void fetch(final String url, final Callback callback) {
+        Net.HttpRequest request = new HttpRequestBuilder().newRequest().method(Net.HttpMethods.GET).url(url).build();
+        Gdx.net.sendHttpRequest(request, new Net.HttpResponseListener() {
+            @Override
+            public void handleHttpResponse(Net.HttpResponse response) {
+                final int status = response.getStatus().getStatusCode();
+                final String text = response.getResultAsString();
+                Gdx.app.postRunnable(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (status != HttpStatus.SC_OK) {
+                            callback.failed(new GdxRuntimeException("HTTP " + status + " for " + url));
+                            return;
+                        }
+                        byte[] data;
+                        try {
+                            data = Base64Coder.decode(text.trim());
+                        } catch (IllegalArgumentException e) {
+                            callback.failed(e);
+                            return;
+                        }
+                        callback.loaded(data);
+                    }
+                });
+            }
+
+            @Override
+            public void failed(final Throwable error) {
+                Gdx.app.postRunnable(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.failed(error);
+                    }
+                });
+            }
+
+            @Override
+            public void cancelled() {
+                failed(new GdxRuntimeException("Request cancelled: " + url));
+            }
+        });
+    }
+}
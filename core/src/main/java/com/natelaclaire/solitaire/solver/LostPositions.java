@@ -0,0 +1,12 @@
+package com.natelaclaire.solitaire.solver;
+
+/**
+ * A store of positions proven unwinnable that outlives one {@link Solver}, such as a file shared between runs.
+ * Positions are keyed by their canonical {@code SolverBoard} hash together with the draw count, since a position
+ * lost at one draw count may be winnable at the other.
+ */
+public interface LostPositions {
+    boolean isLost(long positionHash, int drawCount);
+
+    void putLost(long positionHash, int drawCount);
+}
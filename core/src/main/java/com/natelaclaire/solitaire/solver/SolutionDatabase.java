@@ -0,0 +1,199 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.natelaclaire.solitaire.game.Move;
+
+/**
+ * Precomputed solutions for a range of seeded deals, written offline by {@code SolutionDatabaseWriter} so the game
+ * never has to solve a deal itself. Only the header and a sparse index of chunk offsets are kept in memory; a
+ * lookup reads the one chunk that can hold the seed, so the file is never scanned or loaded whole.
+ *
+ * <p>Layout (big-endian): a {@value #HEADER_SIZE}-byte header (magic, version, first seed, seed count, seeds per
+ * chunk, draw count, offset of the first chunk), then one int per chunk plus one giving where each chunk starts
+ * relative to the first, then the chunks. A chunk lists its solved deals in seed order, each as varints: seed minus
+ * the chunk's first seed, move count, then the moves packed by {@link #packMove}. Deals the solver could not win
+ * are left out.
+ */
+public class SolutionDatabase {
+    public static final int MAGIC = 0x53534442;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    private static final int CACHED_CHUNKS = 4;
+
+    /** Receives the result of {@link #lookup}. */
+    public interface Listener {
+        /** @param moves the winning line from the deal, or null if the database has none for {@code seed} */
+        void solution(long seed, IntArray moves);
+    }
+
+    private final SolutionSource source;
+    private byte[] index;
+    private boolean indexRequested;
+    private Throwable error;
+    private long firstSeed;
+    private int seedCount;
+    private int chunkSeeds;
+    private int drawCount;
+    private int dataStart;
+    private final int[] cachedIds = new int[CACHED_CHUNKS];
+    private final byte[][] cachedData = new byte[CACHED_CHUNKS][];
+    private int nextCacheSlot;
+    /** Lookups waiting for the index. */
+    private final LongArray waitingSeeds = new LongArray();
+    private final Array<Listener> waitingListeners = new Array<>();
+    private int cursor;
+
+    public SolutionDatabase(SolutionSource source) {
+        this.source = source;
+        for (int i = 0; i < CACHED_CHUNKS; i++) {
+            cachedIds[i] = -1;
+        }
+    }
+
+    /**
+     * Finds the solution for {@code seed} and passes it to {@code listener}, straight away if the chunk is already
+     * in memory or the source reads synchronously. The moves are only valid during the call.
+     */
+    public void lookup(final long seed, final Listener listener) {
+        if (error != null) {
+            listener.solution(seed, null);
+            return;
+        }
+        if (index == null) {
+            waitingSeeds.add(seed);
+            waitingListeners.add(listener);
+            requestIndex();
+            return;
+        }
+        if (seed < firstSeed || seed - firstSeed >= seedCount) {
+            listener.solution(seed, null);
+            return;
+        }
+        final int chunk = (int) ((seed - firstSeed) / chunkSeeds);
+        for (int i = 0; i < CACHED_CHUNKS; i++) {
+            if (cachedIds[i] == chunk) {
+                listener.solution(seed, find(cachedData[i], seed - firstSeed - (long) chunk * chunkSeeds));
+                return;
+            }
+        }
+        int start = readInt(index, HEADER_SIZE + chunk * 4);
+        int end = readInt(index, HEADER_SIZE + chunk * 4 + 4);
+        source.loadChunk(chunk, (long) dataStart + start, end - start, new SolutionSource.Callback() {
+            @Override
+            public void loaded(byte[] data) {
+                int slot = nextCacheSlot;
+                nextCacheSlot = (nextCacheSlot + 1) % CACHED_CHUNKS;
+                cachedIds[slot] = chunk;
+                cachedData[slot] = data;
+                listener.solution(seed, find(data, seed - firstSeed - (long) chunk * chunkSeeds));
+            }
+
+            @Override
+            public void failed(Throwable failure) {
+                listener.solution(seed, null);
+            }
+        });
+    }
+
+    /** Returns the draw count the solutions were found with, or -1 before the index has been read. */
+    public int getDrawCount() {
+        return index == null ? -1 : drawCount;
+    }
+
+    /** Returns why the index could not be read, or null. */
+    public Throwable getError() {
+        return error;
+    }
+
+    private void requestIndex() {
+        if (indexRequested) {
+            return;
+        }
+        indexRequested = true;
+        source.loadIndex(new SolutionSource.Callback() {
+            @Override
+            public void loaded(byte[] data) {
+                if (data.length < HEADER_SIZE || readInt(data, 0) != MAGIC || readInt(data, 4) != VERSION) {
+                    failed(new IllegalArgumentException("Not a solution database"));
+                    return;
+                }
+                firstSeed = (long) readInt(data, 8) << 32 | (readInt(data, 12) & 0xffffffffL);
+                seedCount = readInt(data, 16);
+                chunkSeeds = readInt(data, 20);
+                drawCount = readInt(data, 24);
+                dataStart = readInt(data, 28);
+                index = data;
+                flushWaiting();
+            }
+
+            @Override
+            public void failed(Throwable failure) {
+                error = failure;
+                flushWaiting();
+            }
+        });
+    }
+
+    private void flushWaiting() {
+        while (waitingSeeds.size > 0) {
+            lookup(waitingSeeds.removeIndex(0), waitingListeners.removeIndex(0));
+        }
+    }
+
+    /** Scans one chunk for the deal {@code offset} seeds after its first. */
+    private IntArray find(byte[] chunk, long offset) {
+        cursor = 0;
+        while (cursor < chunk.length) {
+            long entry = readVarint(chunk);
+            int count = (int) readVarint(chunk);
+            if (entry > offset) {
+                return null;
+            }
+            if (entry == offset) {
+                IntArray moves = new IntArray(count);
+                for (int i = 0; i < count; i++) {
+                    moves.add(unpackMove((int) readVarint(chunk)));
+                }
+                return moves;
+            }
+            for (int i = 0; i < count; i++) {
+                readVarint(chunk);
+            }
+        }
+        return null;
+    }
+
+    /** Squeezes a {@link Move} into 15 bits so most moves take one or two varint bytes. */
+    public static int packMove(int move) {
+        return Move.kind(move) | Move.from(move) << 2 | Move.start(move) << 6 | Move.to(move) << 11;
+    }
+
+    public static int unpackMove(int packed) {
+        return (packed & 3) << 24 | (packed >>> 2 & 0xf) << 16 | (packed >>> 6 & 0x1f) << 8 | packed >>> 11 & 0xf;
+    }
+
+    /** Returns the number of index bytes, header included, that precede the first chunk. */
+    public static int indexSize(int chunks) {
+        return HEADER_SIZE + (chunks + 1) * 4;
+    }
+
+    private long readVarint(byte[] data) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = data[cursor++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    public static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xff) << 24 | (data[offset + 1] & 0xff) << 16 | (data[offset + 2] & 0xff) << 8
+            | (data[offset + 3] & 0xff);
+    }
+}
@@ -0,0 +1,19 @@
+package com.natelaclaire.solitaire.solver;
+
+/**
+ * Where a {@link SolutionDatabase} reads its bytes from. Reads may complete synchronously, before the call
+ * returns, or later on the render thread, as with an HTTP request.
+ */
+public interface SolutionSource {
+    /** Reads the header and sparse index: every byte before the first chunk. */
+    void loadIndex(Callback callback);
+
+    /** Reads chunk {@code chunk}, which is {@code length} bytes starting at {@code offset} of the database. */
+    void loadChunk(int chunk, long offset, int length, Callback callback);
+
+    interface Callback {
+        void loaded(byte[] data);
+
+        void failed(Throwable error);
+    }
+}
@@ -0,0 +1,23 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.utils.IntArray;
+
+public class SolveResult {
+    public enum Status {
+        SOLVED,
+        UNSOLVABLE,
+        /** The node, depth or table budget ran out before the search finished. */
+        UNKNOWN
+    }
+
+    public Status status = Status.UNKNOWN;
+    public int nodesExpanded;
+    /** The winning line as {@link com.natelaclaire.solitaire.game.Move} values, when {@link Status#SOLVED}. */
+    public final IntArray moves = new IntArray();
+
+    public void reset() {
+        status = Status.UNKNOWN;
+        nodesExpanded = 0;
+        moves.clear();
+    }
+}
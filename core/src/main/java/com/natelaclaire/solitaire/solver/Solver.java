@@ -0,0 +1,396 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.game.Pile;
+
+/**
+ * Depth-first Klondike solver with full knowledge of face-down cards. Safe foundation moves are played without
+ * branching and every visited position is recorded in a {@link TranspositionTable}, so a search that finishes
+ * without hitting its budget proves the deal unwinnable. The search keeps its own stack, so it can be run a
+ * slice at a time through {@link #begin} and {@link #resume}.
+ */
+public class Solver {
+    public static final int DEFAULT_MAX_NODES = 200000;
+    private static final int MAX_DEPTH = 1000;
+    private static final int MOVE_BUFFER = 64 * 1024;
+
+    private final int maxNodes;
+    private final TranspositionTable table;
+    private TranspositionTable lost;
+    private LostPositions lostStore;
+    private final SolverBoard board = new SolverBoard();
+    private final DeadEndAnalyzer deadEnds = new DeadEndAnalyzer();
+    private final int[] moves = new int[MOVE_BUFFER];
+    private final int[] path = new int[MAX_DEPTH];
+    private final int[] undo = new int[MAX_DEPTH];
+    /** Per depth, the next move to try and the end of that position's moves in {@link #moves}. */
+    private final int[] nextMove = new int[MAX_DEPTH];
+    private final int[] moveEnd = new int[MAX_DEPTH];
+    private int movesTop;
+    private int nodes;
+    private int solutionLength;
+
+    private GameState root;
+    private int rootDrawCount;
+    private int flipped;
+    private long rootHash;
+    private int inherited;
+    private int depth;
+    private boolean entering;
+    private boolean finished;
+    private boolean inconclusive;
+
+    public Solver() {
+        this(DEFAULT_MAX_NODES);
+    }
+
+    public Solver(int maxNodes) {
+        this.maxNodes = maxNodes;
+        this.table = new TranspositionTable(maxNodes * 2);
+    }
+
+    /**
+     * Shares a table of positions already proven unwinnable. Those positions are pruned without searching, and
+     * every position visited by a search that proves its root unwinnable is added to it.
+     */
+    public void setLostPositions(TranspositionTable lost) {
+        this.lost = lost;
+    }
+
+    /**
+     * Shares a persistent store of positions proven unwinnable, consulted like {@link #setLostPositions}. Only the
+     * root of a search that proves it unwinnable is written back: the visited set can run to millions of positions,
+     * and storing them all would flush everything else out of a bounded store.
+     */
+    public void setLostStore(LostPositions lostStore) {
+        this.lostStore = lostStore;
+    }
+
+    public SolveResult solve(GameState state, int drawCount) {
+        return solve(state, drawCount, new SolveResult());
+    }
+
+    public SolveResult solve(GameState state, int drawCount, SolveResult result) {
+        begin(state, drawCount, false, result);
+        resume(maxNodes, result);
+        return result;
+    }
+
+    /**
+     * Starts a search of {@code state} that {@link #resume} carries out; {@code state} must not change until it
+     * finishes. With {@code keepTable} the positions visited by earlier searches stay pruned: that can hide a win
+     * but never invent one, so a search that then fails is reported {@link #isInconclusive() inconclusive} rather
+     * than unsolvable. The table is cleared anyway once half of it is used.
+     */
+    public void begin(GameState state, int drawCount, boolean keepTable, SolveResult result) {
+        result.reset();
+        root = state;
+        rootDrawCount = drawCount;
+        flipped = board.load(state, drawCount);
+        rootHash = board.hash();
+        if (!keepTable || table.size() > maxNodes / 2) {
+            table.clear();
+        }
+        inherited = table.size();
+        inconclusive = false;
+        movesTop = 0;
+        nodes = 0;
+        depth = 0;
+        entering = true;
+        finished = false;
+        if (deadEnds.isDeadEnd(board)) {
+            finished = true;
+            result.status = SolveResult.Status.UNSOLVABLE;
+        }
+    }
+
+    /**
+     * Expands up to {@code nodeBudget} more positions of the search started by {@link #begin}. Returns true once
+     * the search has finished, with its outcome in {@code result}.
+     */
+    public boolean resume(int nodeBudget, SolveResult result) {
+        int limit = nodeBudget >= maxNodes - nodes ? maxNodes : nodes + nodeBudget;
+        while (!finished) {
+            if (entering) {
+                if (board.isWon()) {
+                    solutionLength = depth;
+                    finish(SolveResult.Status.SOLVED, result);
+                    break;
+                }
+                if (nodes >= maxNodes || depth >= MAX_DEPTH || movesTop + 256 > MOVE_BUFFER) {
+                    finish(SolveResult.Status.UNKNOWN, result);
+                    break;
+                }
+                if (nodes >= limit) {
+                    return false;
+                }
+                entering = false;
+                long hash = board.hash();
+                if (table.contains(hash) || (lost != null && lost.contains(hash))
+                    || (lostStore != null && lostStore.isLost(hash, board.drawCount))) {
+                    if (!retreat()) {
+                        fail(result);
+                    }
+                    continue;
+                }
+                if (!table.add(hash)) {
+                    finish(SolveResult.Status.UNKNOWN, result);
+                    break;
+                }
+                nodes++;
+                nextMove[depth] = movesTop;
+                movesTop = generateMoves(movesTop);
+                moveEnd[depth] = movesTop;
+            }
+            if (nextMove[depth] < moveEnd[depth]) {
+                int move = moves[nextMove[depth]++];
+                undo[depth] = board.make(move);
+                path[depth] = move;
+                depth++;
+                entering = true;
+            } else if (!retreat()) {
+                fail(result);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the last search failed only on positions kept from an earlier one (see {@link #begin}); search
+     * again with a fresh table to decide.
+     */
+    public boolean isInconclusive() {
+        return inconclusive;
+    }
+
+    /** Backs out of the position at {@link #depth}; returns false once the root itself has failed. */
+    private boolean retreat() {
+        if (depth == 0) {
+            return false;
+        }
+        depth--;
+        board.unmake(path[depth], undo[depth]);
+        movesTop = moveEnd[depth];
+        return true;
+    }
+
+    private void fail(SolveResult result) {
+        if (inherited > 0) {
+            inconclusive = true;
+            finish(SolveResult.Status.UNKNOWN, result);
+            return;
+        }
+        finish(SolveResult.Status.UNSOLVABLE, result);
+        if (lost != null) {
+            // Single-player reachability: when the whole search fails, nothing it visited can reach a win.
+            lost.addAll(table);
+        }
+        if (lostStore != null) {
+            lostStore.putLost(rootHash, rootDrawCount);
+        }
+    }
+
+    private void finish(SolveResult.Status status, SolveResult result) {
+        finished = true;
+        result.status = status;
+        result.nodesExpanded = nodes;
+        if (status == SolveResult.Status.SOLVED) {
+            writeSolution(root, rootDrawCount, flipped, result);
+        }
+    }
+
+    /** Fills the move buffer from {@code top} in the order they should be tried and returns the new top. */
+    private int generateMoves(int top) {
+        SolverBoard b = board;
+        int forced = findSafeFoundationMove();
+        if (forced != 0) {
+            moves[top] = forced;
+            return top + 1;
+        }
+
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            if (b.columnSize[c] > 0) {
+                int card = b.columns[c][b.columnSize[c] - 1];
+                if (b.canPlaceOnFoundation(card)) {
+                    moves[top++] = SolverBoard.move(SolverBoard.T2F, c, card, 0);
+                }
+            }
+        }
+        if (b.wasteSize > 0 && b.canPlaceOnFoundation(b.waste[b.wasteSize - 1])) {
+            moves[top++] = SolverBoard.move(SolverBoard.W2F, b.waste[b.wasteSize - 1], 0, 0);
+        }
+        // Whole face-up runs that uncover a face-down card.
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            if (b.hidden[c] > 0) {
+                top = addTableauMoves(c, b.hidden[c], top);
+            }
+        }
+        if (b.wasteSize > 0) {
+            int card = b.waste[b.wasteSize - 1];
+            boolean emptyTried = false;
+            for (int to = 0; to < SolverBoard.COLUMNS; to++) {
+                if (b.columnSize[to] == 0) {
+                    if (emptyTried) {
+                        continue;
+                    }
+                    emptyTried = true;
+                }
+                if (b.canPlaceOnTableau(to, card)) {
+                    moves[top++] = SolverBoard.move(SolverBoard.W2T, card, 0, to);
+                }
+            }
+        }
+        // Whole runs that empty a column; a king already at the bottom has nowhere useful to go.
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            if (b.hidden[c] == 0 && b.columnSize[c] > 0 && SolverBoard.rank(b.columns[c][0]) != 13) {
+                top = addTableauMoves(c, 0, top);
+            }
+        }
+        // Partial runs that free a card for the foundation.
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            for (int start = b.hidden[c] + 1; start < b.columnSize[c]; start++) {
+                if (b.canPlaceOnFoundation(b.columns[c][start - 1])) {
+                    top = addTableauMoves(c, start, top);
+                }
+            }
+        }
+        if (b.stockSize > 0 || b.wasteSize > 0) {
+            moves[top++] = SolverBoard.move(SolverBoard.DRAW, 0, 0, 0);
+        }
+        for (int suit = 0; suit < 4; suit++) {
+            int rank = b.foundation[suit];
+            if (rank < 2) {
+                continue;
+            }
+            int card = suit * 13 + rank - 1;
+            boolean emptyTried = false;
+            for (int to = 0; to < SolverBoard.COLUMNS; to++) {
+                if (b.columnSize[to] == 0) {
+                    if (emptyTried) {
+                        continue;
+                    }
+                    emptyTried = true;
+                }
+                if (b.canPlaceOnTableau(to, card)) {
+                    moves[top++] = SolverBoard.move(SolverBoard.F2T, suit, 0, to);
+                }
+            }
+        }
+        // Remaining partial runs come last; they are rarely needed but leaving them out would make the search
+        // incomplete, and an unsolvable result has to be a proof.
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            for (int start = b.hidden[c] + 1; start < b.columnSize[c]; start++) {
+                if (!b.canPlaceOnFoundation(b.columns[c][start - 1])) {
+                    top = addTableauMoves(c, start, top);
+                }
+            }
+        }
+        return top;
+    }
+
+    private int addTableauMoves(int from, int start, int top) {
+        SolverBoard b = board;
+        int card = b.columns[from][start];
+        boolean emptyTried = start == 0;
+        for (int to = 0; to < SolverBoard.COLUMNS; to++) {
+            if (to == from) {
+                continue;
+            }
+            if (b.columnSize[to] == 0) {
+                if (emptyTried) {
+                    continue;
+                }
+                emptyTried = true;
+            }
+            if (b.canPlaceOnTableau(to, card)) {
+                moves[top++] = SolverBoard.move(SolverBoard.T2T, from, start, to);
+            }
+        }
+        return top;
+    }
+
+    private int findSafeFoundationMove() {
+        SolverBoard b = board;
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            if (b.columnSize[c] > 0) {
+                int card = b.columns[c][b.columnSize[c] - 1];
+                if (b.canPlaceOnFoundation(card) && b.isSafeFoundationMove(card)) {
+                    return SolverBoard.move(SolverBoard.T2F, c, card, 0);
+                }
+            }
+        }
+        if (b.wasteSize > 0) {
+            int card = b.waste[b.wasteSize - 1];
+            if (b.canPlaceOnFoundation(card) && b.isSafeFoundationMove(card)) {
+                return SolverBoard.move(SolverBoard.W2F, card, 0, 0);
+            }
+        }
+        return 0;
+    }
+
+    /** Replays the winning line on a {@link GameEngine} to translate it into engine {@link Move} values. */
+    private void writeSolution(GameState state, int drawCount, int flipped, SolveResult result) {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(drawCount);
+        engine.setState(state.copy());
+        for (int c = 0; c < SolverBoard.COLUMNS; c++) {
+            if ((flipped & 1 << c) != 0) {
+                play(engine, Move.flip(GameState.FIRST_TABLEAU + c), result);
+            }
+        }
+        for (int i = 0; i < solutionLength; i++) {
+            play(engine, toEngineMove(engine.getState(), path[i]), result);
+        }
+    }
+
+    private static void play(GameEngine engine, int move, SolveResult result) {
+        if (!engine.applyMove(move)) {
+            throw new IllegalStateException("Solver produced an illegal move: " + Integer.toHexString(move));
+        }
+        result.moves.add(move);
+    }
+
+    private static int toEngineMove(GameState state, int move) {
+        switch (SolverBoard.type(move)) {
+            case SolverBoard.W2F:
+                return Move.transfer(GameState.WASTE, state.waste.cards.size - 1,
+                    foundationFor(state, state.waste.cards.peek().suit.ordinal()));
+            case SolverBoard.W2T:
+                return Move.transfer(GameState.WASTE, state.waste.cards.size - 1,
+                    GameState.FIRST_TABLEAU + SolverBoard.c(move));
+            case SolverBoard.T2F: {
+                Pile from = state.tableau.get(SolverBoard.a(move));
+                return Move.transfer(GameState.FIRST_TABLEAU + SolverBoard.a(move), from.cards.size - 1,
+                    foundationFor(state, SolverBoard.suit(SolverBoard.b(move))));
+            }
+            case SolverBoard.T2T:
+                return Move.transfer(GameState.FIRST_TABLEAU + SolverBoard.a(move), SolverBoard.b(move),
+                    GameState.FIRST_TABLEAU + SolverBoard.c(move));
+            case SolverBoard.F2T: {
+                int id = foundationFor(state, SolverBoard.a(move));
+                return Move.transfer(id, state.pile(id).cards.size - 1, GameState.FIRST_TABLEAU + SolverBoard.c(move));
+            }
+            case SolverBoard.DRAW:
+            default:
+                return Move.draw();
+        }
+    }
+
+    /** Returns the foundation pile id holding {@code suit}, or the first empty one. */
+    private static int foundationFor(GameState state, int suit) {
+        int empty = -1;
+        for (int i = 0; i < state.foundations.size; i++) {
+            Pile pile = state.foundations.get(i);
+            if (pile.cards.size == 0) {
+                if (empty < 0) {
+                    empty = i;
+                }
+            } else if (pile.cards.peek().suit.ordinal() == suit) {
+                return GameState.FIRST_FOUNDATION + i;
+            }
+        }
+        return GameState.FIRST_FOUNDATION + empty;
+    }
+}
@@ -0,0 +1,298 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.Card;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Pile;
+
+/**
+ * Compact, mutable copy of a {@link GameState} for search. Cards are stored as {@link Card#index()} bytes,
+ * foundations are tracked per suit, and tableau tops are turned over automatically, matching
+ * {@code GameEngine.revealTopAfterMove}.
+ */
+final class SolverBoard {
+    static final int COLUMNS = 7;
+    static final int MAX_COLUMN = 20;
+    static final int MAX_STOCK = 24;
+
+    static final int W2F = 1;
+    static final int W2T = 2;
+    static final int T2F = 3;
+    static final int T2T = 4;
+    static final int F2T = 5;
+    static final int DRAW = 6;
+
+    final byte[][] columns = new byte[COLUMNS][MAX_COLUMN];
+    final int[] columnSize = new int[COLUMNS];
+    /** Number of face-down cards at the bottom of each column. */
+    final int[] hidden = new int[COLUMNS];
+    final byte[] stock = new byte[MAX_STOCK];
+    int stockSize;
+    final byte[] waste = new byte[MAX_STOCK];
+    int wasteSize;
+    /** Cards on the foundation of each suit, 0-13. */
+    final int[] foundation = new int[4];
+    int drawCount;
+    private final long[] columnKeys = new long[COLUMNS];
+
+    /** Loads {@code state}; returns a bit mask of columns whose face-down top had to be turned over. */
+    int load(GameState state, int drawCount) {
+        this.drawCount = drawCount;
+        int flipped = 0;
+        for (int c = 0; c < COLUMNS; c++) {
+            Pile pile = state.tableau.get(c);
+            columnSize[c] = pile.cards.size;
+            hidden[c] = 0;
+            for (int i = 0; i < pile.cards.size; i++) {
+                Card card = pile.cards.get(i);
+                columns[c][i] = (byte) card.index();
+                if (!card.faceUp) {
+                    hidden[c] = i + 1;
+                }
+            }
+            if (hidden[c] > 0 && hidden[c] == columnSize[c]) {
+                hidden[c]--;
+                flipped |= 1 << c;
+            }
+        }
+        stockSize = copyCards(state.stock, stock);
+        wasteSize = copyCards(state.waste, waste);
+        for (int s = 0; s < 4; s++) {
+            foundation[s] = 0;
+        }
+        for (Pile pile : state.foundations) {
+            if (pile.cards.size > 0) {
+                Card top = pile.cards.peek();
+                foundation[top.suit.ordinal()] = top.rank;
+            }
+        }
+        return flipped;
+    }
+
+    private static int copyCards(Pile pile, byte[] target) {
+        for (int i = 0; i < pile.cards.size; i++) {
+            target[i] = (byte) pile.cards.get(i).index();
+        }
+        return pile.cards.size;
+    }
+
+    static int move(int type, int a, int b, int c) {
+        return type << 24 | a << 16 | b << 8 | c;
+    }
+
+    static int type(int move) {
+        return move >>> 24;
+    }
+
+    static int a(int move) {
+        return (move >>> 16) & 0xff;
+    }
+
+    static int b(int move) {
+        return (move >>> 8) & 0xff;
+    }
+
+    static int c(int move) {
+        return move & 0xff;
+    }
+
+    static int suit(int card) {
+        return card / 13;
+    }
+
+    static int rank(int card) {
+        return card % 13 + 1;
+    }
+
+    static boolean isRed(int card) {
+        int suit = card / 13;
+        return suit == 1 || suit == 2;
+    }
+
+    boolean isWon() {
+        return foundation[0] + foundation[1] + foundation[2] + foundation[3] == 52;
+    }
+
+    boolean canPlaceOnFoundation(int card) {
+        return foundation[suit(card)] == rank(card) - 1;
+    }
+
+    /** A foundation move is safe when no card that could still need it as a tableau parent is left in play. */
+    boolean isSafeFoundationMove(int card) {
+        int rank = rank(card);
+        if (rank <= 2) {
+            return true;
+        }
+        boolean red = isRed(card);
+        int oppositeA = red ? 0 : 1;
+        int oppositeB = red ? 3 : 2;
+        return foundation[oppositeA] >= rank - 1 && foundation[oppositeB] >= rank - 1;
+    }
+
+    boolean canPlaceOnTableau(int column, int card) {
+        int size = columnSize[column];
+        if (size == 0) {
+            return rank(card) == 13;
+        }
+        int top = columns[column][size - 1];
+        return isRed(top) != isRed(card) && rank(card) == rank(top) - 1;
+    }
+
+    /** Applies {@code move} and returns what {@link #unmake} needs to reverse it. */
+    int make(int move) {
+        switch (type(move)) {
+            case W2F:
+                wasteSize--;
+                foundation[suit(a(move))]++;
+                return 0;
+            case W2T: {
+                int to = c(move);
+                columns[to][columnSize[to]++] = waste[--wasteSize];
+                return 0;
+            }
+            case T2F: {
+                int from = a(move);
+                columnSize[from]--;
+                foundation[suit(b(move))]++;
+                return revealTop(from);
+            }
+            case T2T: {
+                int from = a(move);
+                int start = b(move);
+                int to = c(move);
+                int count = columnSize[from] - start;
+                System.arraycopy(columns[from], start, columns[to], columnSize[to], count);
+                columnSize[to] += count;
+                columnSize[from] = start;
+                return count << 1 | revealTop(from);
+            }
+            case F2T: {
+                int suit = a(move);
+                int to = c(move);
+                int rank = foundation[suit]--;
+                columns[to][columnSize[to]++] = (byte) (suit * 13 + rank - 1);
+                return 0;
+            }
+            case DRAW:
+            default: {
+                if (stockSize > 0) {
+                    int count = Math.min(drawCount, stockSize);
+                    for (int i = 0; i < count; i++) {
+                        waste[wasteSize++] = stock[--stockSize];
+                    }
+                    return count;
+                }
+                while (wasteSize > 0) {
+                    stock[stockSize++] = waste[--wasteSize];
+                }
+                return 0;
+            }
+        }
+    }
+
+    void unmake(int move, int undo) {
+        switch (type(move)) {
+            case W2F:
+                foundation[suit(a(move))]--;
+                waste[wasteSize++] = (byte) a(move);
+                break;
+            case W2T: {
+                int to = c(move);
+                waste[wasteSize++] = columns[to][--columnSize[to]];
+                break;
+            }
+            case T2F: {
+                int from = a(move);
+                hidden[from] += undo & 1;
+                foundation[suit(b(move))]--;
+                columns[from][columnSize[from]++] = (byte) b(move);
+                break;
+            }
+            case T2T: {
+                int from = a(move);
+                int to = c(move);
+                int count = undo >> 1;
+                hidden[from] += undo & 1;
+                columnSize[to] -= count;
+                System.arraycopy(columns[to], columnSize[to], columns[from], columnSize[from], count);
+                columnSize[from] += count;
+                break;
+            }
+            case F2T: {
+                int to = c(move);
+                columnSize[to]--;
+                foundation[a(move)]++;
+                break;
+            }
+            case DRAW:
+            default:
+                if (undo > 0) {
+                    for (int i = 0; i < undo; i++) {
+                        stock[stockSize++] = waste[--wasteSize];
+                    }
+                } else {
+                    while (stockSize > 0) {
+                        waste[wasteSize++] = stock[--stockSize];
+                    }
+                }
+                break;
+        }
+    }
+
+    private int revealTop(int column) {
+        if (hidden[column] > 0 && hidden[column] == columnSize[column]) {
+            hidden[column]--;
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Hashes the canonical form of the position: tableau columns are combined in sorted order of their own
+     * hashes and foundations are keyed by suit, so positions that only differ in column order or in which
+     * foundation slot holds which suit share a key. Winnability is the same for all of them.
+     */
+    long hash() {
+        long[] keys = columnKeys;
+        for (int c = 0; c < COLUMNS; c++) {
+            long key = columnHash(c);
+            int i = c;
+            while (i > 0 && keys[i - 1] > key) {
+                keys[i] = keys[i - 1];
+                i--;
+            }
+            keys[i] = key;
+        }
+        long h = 0x2545F4914F6CDD1DL;
+        for (int c = 0; c < COLUMNS; c++) {
+            h = mix(h, keys[c]);
+        }
+        return finish(h);
+    }
+
+    long columnHash(int column) {
+        long h = mix(0x9E3779B97F4A7C15L, hidden[column]);
+        byte[] cards = columns[column];
+        for (int i = 0, n = columnSize[column]; i < n; i++) {
+            h = mix(h, cards[i]);
+        }
+        return h;
+    }
+
+    long finish(long h) {
+        h = mix(h, 0x100 | stockSize);
+        for (int i = 0; i < stockSize; i++) {
+            h = mix(h, stock[i]);
+        }
+        h = mix(h, 0x200 | wasteSize);
+        for (int i = 0; i < wasteSize; i++) {
+            h = mix(h, waste[i]);
+        }
+        h = mix(h, foundation[0] | foundation[1] << 4 | foundation[2] << 8 | foundation[3] << 12);
+        return h ^ (h >>> 31);
+    }
+
+    static long mix(long h, long value) {
+        h = (h ^ value) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 27);
+    }
+}
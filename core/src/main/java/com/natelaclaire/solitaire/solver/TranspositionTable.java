@@ -0,0 +1,83 @@
+package com.natelaclaire.solitaire.solver;
+
+import java.util.Arrays;
+
+/** Fixed-capacity open-addressing set of 64-bit position hashes. Never allocates after construction. */
+public class TranspositionTable {
+    private static final float MAX_LOAD = 0.75f;
+
+    private final long[] keys;
+    private final int mask;
+    private final int limit;
+    private int size;
+
+    public TranspositionTable(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        keys = new long[tableSize];
+        mask = tableSize - 1;
+        limit = (int) (tableSize * MAX_LOAD);
+    }
+
+    public boolean contains(long key) {
+        key = normalize(key);
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long existing = keys[i];
+            if (existing == key) {
+                return true;
+            }
+            if (existing == 0L) {
+                return false;
+            }
+        }
+    }
+
+    /** Adds {@code key}; returns false if it was already present or the table is full. */
+    public boolean add(long key) {
+        key = normalize(key);
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long existing = keys[i];
+            if (existing == key) {
+                return false;
+            }
+            if (existing == 0L) {
+                if (size >= limit) {
+                    return false;
+                }
+                keys[i] = key;
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /** Adds every key of {@code other}; stops early if this table fills up. */
+    public void addAll(TranspositionTable other) {
+        long[] source = other.keys;
+        for (int i = 0; i < source.length && !isFull(); i++) {
+            if (source[i] != 0L) {
+                add(source[i]);
+            }
+        }
+    }
+
+    public boolean isFull() {
+        return size >= limit;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long normalize(long key) {
+        return key == 0L ? 1L : key;
+    }
+}
@@ -0,0 +1,168 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameState;
+
+/**
+ * Answers "can this game still be won?" after every move without re-solving from scratch. The last winning
+ * line found is kept, so while the player follows it the answer is immediate; positions proven unwinnable are
+ * kept across searches, and anything else is re-searched with a small node budget. That search runs a slice at
+ * a time so it never holds up a frame, and its transposition table is kept between searches of the same deal.
+ */
+public class WinnabilityChecker {
+    public static final int DEFAULT_BUDGET = 20000;
+    public static final int DEFAULT_SLICE = 2000;
+    private static final int LOST_CAPACITY = 1 << 16;
+
+    public enum Answer {
+        WINNABLE,
+        NOT_WINNABLE,
+        /** The budget ran out before the search could decide. */
+        UNKNOWN,
+        /** A search is still running; see {@link #isSearching()}. */
+        CHECKING
+    }
+
+    private final Solver solver;
+    private final int slice;
+    private final SolveResult result = new SolveResult();
+    private final TranspositionTable lost = new TranspositionTable(LOST_CAPACITY);
+    /** Moves the engine had played when {@link #line} was found, followed by the winning continuation. */
+    private final IntArray line = new IntArray();
+    private int linePrefix = -1;
+    private long lineSeed;
+    private long lostSeed;
+    private int drawCount;
+
+    private GameState checkedState;
+    private int checkedMoves = -1;
+    private Answer answer = Answer.UNKNOWN;
+    private boolean searching;
+    private boolean tableWarm;
+
+    public WinnabilityChecker() {
+        this(DEFAULT_BUDGET);
+    }
+
+    public WinnabilityChecker(int budget) {
+        this(budget, DEFAULT_SLICE);
+    }
+
+    public WinnabilityChecker(int budget, int slice) {
+        solver = new Solver(budget);
+        solver.setLostPositions(lost);
+        this.slice = slice;
+    }
+
+    /**
+     * Answers for the engine's current position, expanding at most one slice of positions per call. Until the
+     * search decides the answer is {@link Answer#CHECKING}; keep calling, once a frame, while {@link #isSearching()}.
+     */
+    public Answer check(GameEngine engine) {
+        GameState state = engine.getState();
+        IntArray played = engine.getMoves();
+        if (engine.getDrawCount() != drawCount) {
+            reset();
+            drawCount = engine.getDrawCount();
+        }
+        if (state == checkedState && played.size == checkedMoves) {
+            if (searching) {
+                continueSearch(state, played);
+            }
+            return answer;
+        }
+        if (state.seed != lostSeed) {
+            lost.clear();
+            lostSeed = state.seed;
+            tableWarm = false;
+        }
+        checkedState = state;
+        checkedMoves = played.size;
+
+        if (followsLine(state.seed, played)) {
+            searching = false;
+            answer = Answer.WINNABLE;
+            return answer;
+        }
+        solver.begin(state, drawCount, tableWarm, result);
+        tableWarm = true;
+        searching = true;
+        answer = Answer.CHECKING;
+        continueSearch(state, played);
+        return answer;
+    }
+
+    /** Whether a search is still running, so {@link #check} should be called again next frame. */
+    public boolean isSearching() {
+        return searching;
+    }
+
+    private void continueSearch(GameState state, IntArray played) {
+        if (!solver.resume(slice, result)) {
+            return;
+        }
+        if (solver.isInconclusive()) {
+            // Positions kept from earlier searches hid the way to a win, if there is one; search again from scratch.
+            solver.begin(state, drawCount, false, result);
+            return;
+        }
+        searching = false;
+        switch (result.status) {
+            case SOLVED:
+                line.clear();
+                line.addAll(played);
+                line.addAll(result.moves);
+                linePrefix = played.size;
+                lineSeed = state.seed;
+                answer = Answer.WINNABLE;
+                break;
+            case UNSOLVABLE:
+                answer = Answer.NOT_WINNABLE;
+                break;
+            default:
+                answer = Answer.UNKNOWN;
+                break;
+        }
+    }
+
+    /**
+     * Takes a winning line for the deal {@code seed} from elsewhere, such as a {@link SolutionDatabase}, so that
+     * the answer is immediate for as long as the player follows it.
+     */
+    public void offerSolution(long seed, int drawCount, IntArray moves) {
+        if (drawCount != this.drawCount) {
+            reset();
+            this.drawCount = drawCount;
+        }
+        line.clear();
+        line.addAll(moves);
+        linePrefix = 0;
+        lineSeed = seed;
+        checkedState = null;
+        checkedMoves = -1;
+    }
+
+    /** Forgets the known line and proven-lost positions, e.g. when the draw count changes. */
+    public void reset() {
+        line.clear();
+        linePrefix = -1;
+        lost.clear();
+        checkedState = null;
+        checkedMoves = -1;
+        searching = false;
+        tableWarm = false;
+    }
+
+    private boolean followsLine(long seed, IntArray played) {
+        if (linePrefix < 0 || seed != lineSeed || played.size < linePrefix || played.size > line.size) {
+            return false;
+        }
+        for (int i = 0; i < played.size; i++) {
+            if (played.get(i) != line.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
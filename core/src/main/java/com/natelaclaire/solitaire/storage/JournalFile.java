@@ -0,0 +1,494 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameEvent;
+import com.natelaclaire.solitaire.game.GameJournal;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.game.UndoTree;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.zip.CRC32;
+
+/**
+ * {@link GameJournal} kept as a write-ahead log plus a snapshot. Games are deterministic given their seed, so
+ * instead of saving positions the journal appends each move, undo, new deal and draw count change as a record of a
+ * few bytes, written to the OS straight away so it survives the app being killed. {@code fsync} is batched: it runs
+ * once {@code syncEvery} records are pending, from a background timer {@code syncMillis} after the first pending
+ * record, and on {@link #flush}. If the disk fails the error is logged and journaling stops; the game carries on.
+ *
+ * <p>Every {@code compactEvery} records the game so far is compacted into {@code autosave.snap}: the seed, the draw
+ * count it started with and the moves still on the undo history, with undone moves dropped. The snapshot is
+ * written to a temporary file, synced and renamed over the old one, then the log is started over. Each snapshot
+ * carries a serial number that the log repeats in its header, so a crash between the two steps cannot apply the
+ * same records twice. {@link #restore} replays the snapshot and then the log, stopping at the first torn or
+ * corrupt record.
+ *
+ * <p>Only the path from the deal to the current position is kept. Branches of the undo tree off that path, left
+ * by undoing and playing something else, are not journaled and are gone after a restore.
+ *
+ * <p>Assumes every undoable change goes through {@link GameEngine#applyMove} and every game starts from
+ * {@link GameEngine#newGame(long)}, which is how {@code InputController} drives the engine.
+ */
+public class JournalFile implements GameJournal {
+    private static final int SNAPSHOT_MAGIC = 0x534e4150;
+    private static final int SNAPSHOT_VERSION = 1;
+    /** Snapshot bytes besides the moves: magic, version, serial, has game, seed, draw count, size and CRC. */
+    private static final int SNAPSHOT_SIZE = 34;
+    private static final int LOG_MAGIC = 0x4a524e4c;
+    private static final int LOG_HEADER_SIZE = 12;
+    private static final byte NEW_GAME = 1;
+    private static final byte MOVE = 2;
+    private static final byte UNDO = 3;
+    private static final byte DRAW_COUNT = 4;
+    /** Entries of {@link #line} with this high byte are draw count changes rather than {@code Move} values. */
+    private static final int DRAW_COUNT_ENTRY = 0xff000000;
+
+    private final File directory;
+    private final int syncEvery;
+    private final long syncMillis;
+    private final int compactEvery;
+    private final ByteBuffer record = ByteBuffer.allocate(16);
+
+    /** The game as the snapshot would store it: moves and draw count changes, without undone moves. */
+    private final IntArray line = new IntArray();
+    private long seed;
+    private int startDrawCount = 3;
+    private boolean hasGame;
+    private long serial;
+
+    private RandomAccessFile log;
+    private FileChannel channel;
+    private int pending;
+    private int logRecords;
+    private Timer timer;
+    private TimerTask scheduledSync;
+    private IOException failure;
+
+    public JournalFile(File directory) {
+        this(directory, 32, 2000L, 512);
+    }
+
+    public JournalFile(File directory, int syncEvery, long syncMillis, int compactEvery) {
+        this.directory = directory;
+        this.syncEvery = syncEvery;
+        this.syncMillis = syncMillis;
+        this.compactEvery = compactEvery;
+    }
+
+    public File getSnapshotFile() {
+        return new File(directory, "autosave.snap");
+    }
+
+    public File getLogFile() {
+        return new File(directory, "autosave.log");
+    }
+
+    @Override
+    public synchronized boolean restore(GameEngine engine) {
+        line.clear();
+        hasGame = false;
+        serial = 0;
+        try {
+            readSnapshot();
+            if (hasGame) {
+                engine.setDrawCount(startDrawCount);
+                engine.newGame(seed);
+                for (int i = 0; i < line.size; i++) {
+                    replayEntry(engine, line.get(i));
+                }
+            }
+            replayLog(engine);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read autosave", e);
+        }
+        return hasGame;
+    }
+
+    /** Returns the error that stopped journaling, or null while it is working. */
+    public synchronized IOException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public synchronized void onGameEvent(GameEngine engine, GameEvent event) {
+        if (failure != null) {
+            return;
+        }
+        try {
+            switch (event.type) {
+                case RESET:
+                    seed = engine.getState().seed;
+                    startDrawCount = engine.getDrawCount();
+                    hasGame = true;
+                    line.clear();
+                    record.clear();
+                    record.put(NEW_GAME).putLong(seed).put((byte) startDrawCount);
+                    append();
+                    break;
+                case MOVE_PLAYED:
+                    line.add(event.move);
+                    record.clear();
+                    record.put(MOVE).putInt(event.move);
+                    append();
+                    break;
+                case UNDO:
+                    undoLine();
+                    record.clear();
+                    record.put(UNDO);
+                    append();
+                    break;
+                case DRAW_COUNT_CHANGED:
+                    line.add(DRAW_COUNT_ENTRY | event.count);
+                    record.clear();
+                    record.put(DRAW_COUNT).put((byte) event.count);
+                    append();
+                    break;
+                case JUMP:
+                    // The new position may be on another branch; rewrite the line and store it as a snapshot.
+                    rebuildLine(engine);
+                    compact();
+                    return;
+                default:
+                    return;
+            }
+            if (logRecords >= compactEvery) {
+                compact();
+            }
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (failure == null) {
+                sync();
+            }
+        } catch (IOException e) {
+            disable(e);
+        } finally {
+            closeLog();
+        }
+    }
+
+    /** Writes the current line as a new snapshot and starts an empty log that refers to it. */
+    public synchronized void compact() throws IOException {
+        ensureDirectory();
+        long nextSerial = serial + 1;
+        File temp = new File(directory, "autosave.tmp");
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_SIZE + line.size * 4);
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(SNAPSHOT_VERSION);
+        buffer.putLong(nextSerial);
+        buffer.put((byte) (hasGame ? 1 : 0));
+        buffer.putLong(seed);
+        buffer.put((byte) startDrawCount);
+        buffer.putInt(line.size);
+        for (int i = 0; i < line.size; i++) {
+            buffer.putInt(line.get(i));
+        }
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(buffer.array(), 0, buffer.position());
+            out.getFD().sync();
+        }
+        File snapshot = getSnapshotFile();
+        if (!temp.renameTo(snapshot)) {
+            // Some platforms refuse to rename over an existing file.
+            snapshot.delete();
+            if (!temp.renameTo(snapshot)) {
+                throw new IOException("Cannot replace " + snapshot);
+            }
+        }
+        serial = nextSerial;
+        openLog(true);
+    }
+
+    private void append() throws IOException {
+        if (log == null) {
+            openLog(false);
+        }
+        // One check byte over the record catches garbage left behind by a torn write. It goes out in the same
+        // write as the record.
+        int end = record.position();
+        record.flip();
+        byte check = checkByte(record, end);
+        record.limit(end + 1);
+        record.put(end, check);
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        logRecords++;
+        pending++;
+        if (pending >= syncEvery) {
+            sync();
+        } else if (scheduledSync == null) {
+            scheduleSync();
+        }
+    }
+
+    private void sync() throws IOException {
+        if (scheduledSync != null) {
+            scheduledSync.cancel();
+            scheduledSync = null;
+        }
+        if (channel != null && pending > 0) {
+            channel.force(false);
+        }
+        pending = 0;
+    }
+
+    /** Syncs {@code syncMillis} from now, so a record is not left unsynced while the game sits idle. */
+    private void scheduleSync() {
+        if (syncMillis == Long.MAX_VALUE) {
+            // Only ever synced by count and on flush.
+            return;
+        }
+        if (timer == null) {
+            timer = new Timer("autosave-sync", true);
+        }
+        scheduledSync = new TimerTask() {
+            @Override
+            public void run() {
+                flush();
+            }
+        };
+        timer.schedule(scheduledSync, syncMillis);
+    }
+
+    /** Stops journaling after a write failed, rather than taking the game down with it. */
+    private void disable(IOException e) {
+        failure = e;
+        if (Gdx.app != null) {
+            Gdx.app.error("JournalFile", "Autosave stopped", e);
+        }
+        closeLog();
+    }
+
+    private void closeLog() {
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+            scheduledSync = null;
+        }
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // Nothing more is written to it either way.
+            }
+            log = null;
+            channel = null;
+        }
+    }
+
+    /** Opens the log for appending; {@code reset} starts it over for the current snapshot serial. */
+    private void openLog(boolean reset) throws IOException {
+        ensureDirectory();
+        if (log == null) {
+            log = new RandomAccessFile(getLogFile(), "rw");
+            channel = log.getChannel();
+        }
+        if (reset || log.length() < LOG_HEADER_SIZE) {
+            log.setLength(0);
+            log.seek(0);
+            log.writeInt(LOG_MAGIC);
+            log.writeLong(serial);
+            channel.force(false);
+            logRecords = 0;
+            pending = 0;
+        }
+        channel.position(log.length());
+    }
+
+    private void readSnapshot() throws IOException {
+        File snapshot = getSnapshotFile();
+        if (!snapshot.exists()) {
+            return;
+        }
+        byte[] bytes = new byte[(int) snapshot.length()];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(snapshot))) {
+            in.readFully(bytes);
+        }
+        if (bytes.length < SNAPSHOT_SIZE) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (buffer.getInt(bytes.length - 4) != (int) crc.getValue() || buffer.getInt() != SNAPSHOT_MAGIC
+            || buffer.getInt() != SNAPSHOT_VERSION) {
+            return;
+        }
+        serial = buffer.getLong();
+        hasGame = buffer.get() != 0;
+        seed = buffer.getLong();
+        startDrawCount = buffer.get();
+        int count = buffer.getInt();
+        line.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            line.add(buffer.getInt());
+        }
+    }
+
+    /** Applies the log records written after the snapshot, then truncates anything unreadable at the end. */
+    private void replayLog(GameEngine engine) throws IOException {
+        File file = getLogFile();
+        logRecords = 0;
+        if (!file.exists() || file.length() < LOG_HEADER_SIZE) {
+            return;
+        }
+        byte[] bytes = new byte[(int) file.length()];
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            in.readFully(bytes);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != LOG_MAGIC || buffer.getLong() != serial) {
+            // Left over from before the last snapshot, which already contains it.
+            return;
+        }
+        int valid = buffer.position();
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            byte tag = buffer.get();
+            int length = tag == NEW_GAME ? 10 : tag == MOVE ? 5 : tag == UNDO ? 1 : tag == DRAW_COUNT ? 2 : -1;
+            if (length < 0 || start + length + 1 > bytes.length) {
+                break;
+            }
+            ByteBuffer view = ByteBuffer.wrap(bytes, start, length);
+            if (checkByte(view, start + length) != bytes[start + length]) {
+                break;
+            }
+            if (tag != NEW_GAME && !hasGame) {
+                // Recorded for a deal the journal never saw; replaying it onto another deal would be meaningless.
+                buffer.position(start + length + 1);
+                valid = buffer.position();
+                logRecords++;
+                continue;
+            }
+            switch (tag) {
+                case NEW_GAME:
+                    seed = buffer.getLong();
+                    startDrawCount = buffer.get();
+                    hasGame = true;
+                    line.clear();
+                    engine.setDrawCount(startDrawCount);
+                    engine.newGame(seed);
+                    break;
+                case MOVE: {
+                    int move = buffer.getInt();
+                    line.add(move);
+                    engine.applyMove(move);
+                    break;
+                }
+                case UNDO:
+                    undoLine();
+                    engine.undoLast();
+                    break;
+                default: {
+                    int drawCount = buffer.get();
+                    line.add(DRAW_COUNT_ENTRY | drawCount);
+                    engine.setDrawCount(drawCount);
+                    break;
+                }
+            }
+            buffer.get();
+            valid = buffer.position();
+            logRecords++;
+        }
+        if (valid < bytes.length) {
+            try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+                truncate.setLength(valid);
+            }
+        }
+    }
+
+    /** Sets the line to the path from the root of the engine's undo tree to its current node. */
+    private void rebuildLine(GameEngine engine) {
+        UndoTree tree = engine.getUndoTree();
+        line.clear();
+        for (int node = engine.getCurrentNode(); node != UndoTree.ROOT; node = tree.getParent(node)) {
+            if (tree.getMove(node) != Move.NONE) {
+                line.add(tree.getMove(node));
+                line.add(DRAW_COUNT_ENTRY | tree.getDrawCount(node));
+            }
+        }
+        line.reverse();
+        // Drop draw count entries that repeat the one already in effect.
+        int drawCount = line.size > 0 ? line.get(0) & 0xff : engine.getDrawCount();
+        startDrawCount = drawCount;
+        int kept = 0;
+        for (int i = 0; i < line.size; i++) {
+            int entry = line.get(i);
+            if ((entry & 0xff000000) == DRAW_COUNT_ENTRY) {
+                if ((entry & 0xff) == drawCount) {
+                    continue;
+                }
+                drawCount = entry & 0xff;
+            }
+            line.set(kept++, entry);
+        }
+        line.size = kept;
+        if (engine.getDrawCount() != drawCount) {
+            line.add(DRAW_COUNT_ENTRY | engine.getDrawCount());
+        }
+    }
+
+    private void replayEntry(GameEngine engine, int entry) {
+        if ((entry & 0xff000000) == DRAW_COUNT_ENTRY) {
+            engine.setDrawCount(entry & 0xff);
+        } else {
+            engine.applyMove(entry);
+        }
+    }
+
+    /** Drops the last move from the line; draw count changes stay in effect, as they do in the engine. */
+    private void undoLine() {
+        for (int i = line.size - 1; i >= 0; i--) {
+            if ((line.get(i) & 0xff000000) != DRAW_COUNT_ENTRY) {
+                line.removeIndex(i);
+                return;
+            }
+        }
+    }
+
+    private static byte checkByte(ByteBuffer buffer, int end) {
+        int check = 0x5a;
+        for (int i = buffer.position(); i < end; i++) {
+            check = check * 31 + buffer.get(i);
+        }
+        return (byte) check;
+    }
+
+    private void ensureDirectory() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+    }
+}
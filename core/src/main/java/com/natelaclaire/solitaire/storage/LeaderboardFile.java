@@ -0,0 +1,288 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.DailyChallenge;
+import com.natelaclaire.solitaire.game.DifficultyIndex;
+import com.natelaclaire.solitaire.game.Leaderboard;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link Leaderboard} kept in two files. {@code leaderboard.idx} holds one fixed-size block per day, sorted by
+ * day, each with the top N entries in score order, so a day is found by binary search without scanning the file.
+ * {@code leaderboard.replays} is an append-only log of the move lists the entries point into.
+ */
+public class LeaderboardFile implements Leaderboard {
+    public static final int DEFAULT_ENTRIES_PER_DAY = 10;
+    private static final int MAGIC = 0x534c4252;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int BLOCK_HEADER_SIZE = 8;
+    /** score, draw count, seed, replay offset, move count. */
+    private static final int ENTRY_SIZE = 28;
+
+    private final File directory;
+    private int entriesPerDay;
+    private int blockSize;
+    private int dayCount;
+    private RandomAccessFile index;
+    private RandomAccessFile replays;
+    private ByteBuffer block;
+    private DifficultyIndex difficultyIndex;
+
+    public static class Entry {
+        public int score;
+        public int drawCount;
+        public long seed;
+        public long replayOffset;
+        public int moveCount;
+    }
+
+    public LeaderboardFile(File directory) {
+        this(directory, DEFAULT_ENTRIES_PER_DAY);
+    }
+
+    public LeaderboardFile(File directory, int entriesPerDay) {
+        this.directory = directory;
+        this.entriesPerDay = entriesPerDay;
+    }
+
+    @Override
+    public synchronized void setDifficultyIndex(DifficultyIndex index) {
+        difficultyIndex = index;
+    }
+
+    @Override
+    public synchronized int submit(int day, long seed, int drawCount, int score, IntArray moves) {
+        if (seed != DailyChallenge.seedFor(day, difficultyIndex)
+            || DailyChallenge.replayScore(seed, drawCount, moves) != score) {
+            return REJECTED;
+        }
+        try {
+            open();
+            int position = findDay(day);
+            if (position < 0) {
+                position = -position - 1;
+                insertDay(position, day);
+            }
+            readBlock(position);
+            int count = block.getInt(4);
+            int rank = 0;
+            while (rank < count && block.getInt(entryOffset(rank)) >= score) {
+                rank++;
+            }
+            if (rank >= entriesPerDay) {
+                return NOT_RANKED;
+            }
+            long replayOffset = appendReplay(moves);
+            int last = Math.min(count, entriesPerDay - 1);
+            for (int i = last; i > rank; i--) {
+                copyEntry(i - 1, i);
+            }
+            int offset = entryOffset(rank);
+            block.putInt(offset, score);
+            block.putInt(offset + 4, drawCount);
+            block.putLong(offset + 8, seed);
+            block.putLong(offset + 16, replayOffset);
+            block.putInt(offset + 24, moves.size);
+            block.putInt(4, Math.min(count + 1, entriesPerDay));
+            writeBlock(position);
+            return rank;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot update leaderboard", e);
+        }
+    }
+
+    @Override
+    public synchronized int bestScore(int day) {
+        try {
+            open();
+            int position = findDay(day);
+            if (position < 0) {
+                return -1;
+            }
+            index.seek(blockOffset(position) + 4);
+            int count = index.readInt();
+            return count == 0 ? -1 : index.readInt();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read leaderboard", e);
+        }
+    }
+
+    /** Returns the number of entries recorded for {@code day}. */
+    public synchronized int count(int day) {
+        try {
+            open();
+            int position = findDay(day);
+            if (position < 0) {
+                return 0;
+            }
+            index.seek(blockOffset(position) + 4);
+            return index.readInt();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read leaderboard", e);
+        }
+    }
+
+    public synchronized Entry getEntry(int day, int rank, Entry out) {
+        try {
+            open();
+            int position = findDay(day);
+            if (position < 0) {
+                return null;
+            }
+            readBlock(position);
+            if (rank < 0 || rank >= block.getInt(4)) {
+                return null;
+            }
+            int offset = entryOffset(rank);
+            out.score = block.getInt(offset);
+            out.drawCount = block.getInt(offset + 4);
+            out.seed = block.getLong(offset + 8);
+            out.replayOffset = block.getLong(offset + 16);
+            out.moveCount = block.getInt(offset + 24);
+            return out;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read leaderboard", e);
+        }
+    }
+
+    /** Reads the recorded moves of {@code entry} into {@code out}. */
+    public synchronized void readReplay(Entry entry, IntArray out) {
+        try {
+            open();
+            out.clear();
+            out.ensureCapacity(entry.moveCount);
+            replays.seek(entry.replayOffset);
+            for (int i = 0; i < entry.moveCount; i++) {
+                out.add(replays.readInt());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read leaderboard replay", e);
+        }
+    }
+
+    /** Re-simulates the stored replay of an entry and checks it still produces the recorded score. */
+    public boolean verify(int day, int rank) {
+        Entry entry = getEntry(day, rank, new Entry());
+        if (entry == null) {
+            return false;
+        }
+        IntArray moves = new IntArray(entry.moveCount);
+        readReplay(entry, moves);
+        return DailyChallenge.replayScore(entry.seed, entry.drawCount, moves) == entry.score;
+    }
+
+    public synchronized void close() throws IOException {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        if (replays != null) {
+            replays.close();
+            replays = null;
+        }
+    }
+
+    private void open() throws IOException {
+        if (index != null) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        index = new RandomAccessFile(new File(directory, "leaderboard.idx"), "rw");
+        replays = new RandomAccessFile(new File(directory, "leaderboard.replays"), "rw");
+        if (index.length() >= HEADER_SIZE) {
+            if (index.readInt() != MAGIC || index.readInt() != VERSION) {
+                throw new IOException("Not a leaderboard file");
+            }
+            entriesPerDay = index.readInt();
+            dayCount = index.readInt();
+        } else {
+            index.writeInt(MAGIC);
+            index.writeInt(VERSION);
+            index.writeInt(entriesPerDay);
+            index.writeInt(0);
+            dayCount = 0;
+        }
+        blockSize = BLOCK_HEADER_SIZE + entriesPerDay * ENTRY_SIZE;
+        block = ByteBuffer.allocate(blockSize);
+    }
+
+    /** Binary search over the day blocks; returns the position, or {@code -(insertion point) - 1}. */
+    private int findDay(int day) throws IOException {
+        int low = 0;
+        int high = dayCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            index.seek(blockOffset(mid));
+            int midDay = index.readInt();
+            if (midDay < day) {
+                low = mid + 1;
+            } else if (midDay > day) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -low - 1;
+    }
+
+    private void insertDay(int position, int day) throws IOException {
+        // Days normally arrive in order, so this loop rarely moves anything.
+        for (int i = dayCount - 1; i >= position; i--) {
+            readBlock(i);
+            writeBlock(i + 1);
+        }
+        block.clear();
+        for (int i = 0; i < blockSize; i++) {
+            block.put(i, (byte) 0);
+        }
+        block.putInt(0, day);
+        writeBlock(position);
+        dayCount++;
+        index.seek(12);
+        index.writeInt(dayCount);
+    }
+
+    private long appendReplay(IntArray moves) throws IOException {
+        long offset = replays.length();
+        ByteBuffer buffer = ByteBuffer.allocate(moves.size * 4);
+        for (int i = 0; i < moves.size; i++) {
+            buffer.putInt(moves.get(i));
+        }
+        replays.seek(offset);
+        replays.write(buffer.array());
+        return offset;
+    }
+
+    private void copyEntry(int from, int to) {
+        int source = entryOffset(from);
+        int target = entryOffset(to);
+        for (int i = 0; i < ENTRY_SIZE; i++) {
+            block.put(target + i, block.get(source + i));
+        }
+    }
+
+    private void readBlock(int position) throws IOException {
+        index.seek(blockOffset(position));
+        index.readFully(block.array(), 0, blockSize);
+    }
+
+    private void writeBlock(int position) throws IOException {
+        index.seek(blockOffset(position));
+        index.write(block.array(), 0, blockSize);
+    }
+
+    private long blockOffset(int position) {
+        return HEADER_SIZE + (long) position * blockSize;
+    }
+
+    private static int entryOffset(int rank) {
+        return BLOCK_HEADER_SIZE + rank * ENTRY_SIZE;
+    }
+}
@@ -0,0 +1,269 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.natelaclaire.solitaire.solver.LostPositions;
+import com.natelaclaire.solitaire.solver.SolveResult;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Solver results kept across runs in a fixed-size, memory-mapped hash file: deal results keyed by seed and
+ * positions proven unwinnable keyed by their {@code SolverBoard} hash, both per draw count. Lookups read the
+ * mapping directly, so nothing is loaded onto the heap. As a {@link LostPositions} store it can be handed to
+ * {@code Solver.setLostStore}.
+ *
+ * <p>The file has a fixed number of slots. A key may live in any of the {@link #PROBE_WINDOW} slots after its home
+ * slot; when all of them are taken the oldest entry in the window is overwritten, so the file never grows.
+ *
+ * <p>One process at a time may open the file for writing (enforced with a file lock); any number may open it for
+ * reading and see the writer's entries as they land. Every slot carries a stamp that the writer clears before
+ * touching the slot and sets again last, and readers only accept an entry whose stamp reads the same non-zero
+ * value before and after the other fields, so a slot caught mid-write reads as a miss.
+ *
+ * <p>Bump {@link #VERSION} whenever solver changes could make stored results disagree with a fresh search.
+ */
+public class SolverCache implements Closeable, LostPositions {
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+    public static final int PROBE_WINDOW = 8;
+    /** Keeps the whole file inside one mapping. */
+    public static final int MAX_CAPACITY = 1 << 26;
+    private static final int MAGIC = 0x53534348;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    /** key, stamp, nodes, solution length, kind, draw count, status and padding. */
+    private static final int SLOT_SIZE = 24;
+    /** Kind bytes of occupied slots; 0 marks a free one. */
+    private static final int KIND_DEAL = 1;
+    private static final int KIND_LOST = 2;
+
+    private final RandomAccessFile file;
+    private final FileLock lock;
+    private final MappedByteBuffer map;
+    private final int mask;
+    private final boolean writable;
+    private int size;
+    private int stamp;
+
+    public static class Entry {
+        public SolveResult.Status status;
+        public int nodesExpanded;
+        public int solutionLength;
+    }
+
+    private SolverCache(RandomAccessFile file, FileLock lock, MappedByteBuffer map, int capacity, boolean writable) {
+        this.file = file;
+        this.lock = lock;
+        this.map = map;
+        this.mask = capacity - 1;
+        this.writable = writable;
+        this.size = map.getInt(12);
+        this.stamp = map.getInt(16);
+    }
+
+    /**
+     * Opens {@code cacheFile} for writing, creating it with room for {@code capacity} entries (rounded up to a
+     * power of two) if it does not exist. An existing file keeps its own capacity.
+     */
+    public static SolverCache openWriter(File cacheFile, int capacity) throws IOException {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be at most " + MAX_CAPACITY);
+        }
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+        try {
+            FileLock lock;
+            try {
+                lock = file.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException(cacheFile + " is already open for writing");
+            }
+            if (file.length() == 0) {
+                int slots = Integer.highestOneBit(Math.max(PROBE_WINDOW, capacity - 1)) << 1;
+                file.setLength(HEADER_SIZE + (long) slots * SLOT_SIZE);
+                file.writeInt(MAGIC);
+                file.writeInt(VERSION);
+                file.writeInt(slots);
+            }
+            int slots = readHeader(file, cacheFile);
+            MappedByteBuffer map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, file.length());
+            return new SolverCache(file, lock, map, slots, true);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /** Opens an existing cache read-only; a writer in another process may keep adding to it. */
+    public static SolverCache openReader(File cacheFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(cacheFile, "r");
+        try {
+            int slots = readHeader(file, cacheFile);
+            MappedByteBuffer map = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            return new SolverCache(file, null, map, slots, false);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static int readHeader(RandomAccessFile file, File cacheFile) throws IOException {
+        file.seek(0);
+        if (file.length() < HEADER_SIZE || file.readInt() != MAGIC || file.readInt() != VERSION) {
+            throw new IOException("Not a solver cache, or one from another solver version: " + cacheFile);
+        }
+        int slots = file.readInt();
+        if (Integer.bitCount(slots) != 1 || file.length() != HEADER_SIZE + (long) slots * SLOT_SIZE) {
+            throw new IOException("Corrupt solver cache: " + cacheFile);
+        }
+        return slots;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Number of occupied slots, as of the writer's last update. */
+    public int size() {
+        return writable ? size : map.getInt(12);
+    }
+
+    /** Looks up the stored result for a deal; returns null on a miss. */
+    public Entry getDeal(long seed, int drawCount, Entry out) {
+        int slot = find(KIND_DEAL, seed, drawCount);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = offset(slot);
+        int before = map.getInt(offset + 8);
+        out.nodesExpanded = map.getInt(offset + 12);
+        out.solutionLength = map.getShort(offset + 16) & 0xffff;
+        int status = map.get(offset + 20);
+        if (before == 0 || map.getInt(offset + 8) != before || !holds(offset, KIND_DEAL, seed, drawCount)) {
+            return null;
+        }
+        out.status = SolveResult.Status.values()[status];
+        return out;
+    }
+
+    /** Stores a finished search for a deal. Results that ran out of budget are not stored. */
+    public synchronized void putDeal(long seed, int drawCount, SolveResult result) {
+        if (result.status == SolveResult.Status.UNKNOWN) {
+            return;
+        }
+        put(KIND_DEAL, seed, drawCount, result.status.ordinal(), result.nodesExpanded, result.moves.size);
+    }
+
+    @Override
+    public boolean isLost(long positionHash, int drawCount) {
+        return find(KIND_LOST, positionHash, drawCount) >= 0;
+    }
+
+    @Override
+    public synchronized void putLost(long positionHash, int drawCount) {
+        put(KIND_LOST, positionHash, drawCount, SolveResult.Status.UNSOLVABLE.ordinal(), 0, 0);
+    }
+
+    /** Returns the slot holding a complete entry for the key, or -1. */
+    private int find(int kind, long key, int drawCount) {
+        int home = home(key, drawCount);
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (home + i) & mask;
+            int offset = offset(slot);
+            int slotKind = map.get(offset + 18);
+            if (slotKind == 0) {
+                return -1;
+            }
+            int before = map.getInt(offset + 8);
+            if (before != 0 && holds(offset, kind, key, drawCount) && map.getInt(offset + 8) == before) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** Whether the slot at {@code offset} currently carries this key; check the stamp around it. */
+    private boolean holds(int offset, int kind, long key, int drawCount) {
+        return map.get(offset + 18) == kind && map.getLong(offset) == key && map.get(offset + 19) == drawCount;
+    }
+
+    private void put(int kind, long key, int drawCount, int status, int nodes, int length) {
+        if (!writable) {
+            throw new IllegalStateException("Solver cache is open read-only");
+        }
+        int home = home(key, drawCount);
+        int target = -1;
+        int oldest = Integer.MAX_VALUE;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (home + i) & mask;
+            int offset = offset(slot);
+            int slotKind = map.get(offset + 18);
+            if (slotKind == 0) {
+                target = slot;
+                size++;
+                break;
+            }
+            if (holds(offset, kind, key, drawCount)) {
+                target = slot;
+                break;
+            }
+            int slotStamp = map.getInt(offset + 8);
+            if (slotStamp < oldest) {
+                oldest = slotStamp;
+                target = slot;
+            }
+        }
+        if (stamp == Integer.MAX_VALUE) {
+            // Never reached in practice; restarting keeps stamps positive at the cost of eviction order.
+            stamp = 0;
+        }
+        stamp++;
+        int offset = offset(target);
+        map.putInt(offset + 8, 0);
+        map.putLong(offset, key);
+        map.putInt(offset + 12, nodes);
+        map.putShort(offset + 16, (short) Math.min(0xffff, length));
+        map.put(offset + 19, (byte) drawCount);
+        map.put(offset + 20, (byte) status);
+        map.put(offset + 18, (byte) kind);
+        map.putInt(offset + 8, stamp);
+        map.putInt(12, size);
+        map.putInt(16, stamp);
+    }
+
+    private int home(long key, int drawCount) {
+        long h = (key ^ (long) drawCount << 48) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /** Writes dirty pages back to disk; the operating system does this on its own as well. */
+    public synchronized void flush() {
+        if (writable) {
+            map.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (lock != null) {
+            lock.release();
+        }
+        file.close();
+    }
+}
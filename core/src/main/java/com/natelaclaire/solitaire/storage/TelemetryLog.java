@@ -0,0 +1,212 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.badlogic.gdx.utils.TimeUtils;
+import com.natelaclaire.solitaire.game.Telemetry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link Telemetry} written to rotating local log files by a background thread.
+ *
+ * <p>{@link #record} only stores four longs into a preallocated single-producer ring buffer and publishes them with
+ * an ordered write, so it never blocks or allocates; it must always be called from the same thread. When the ring is
+ * full the record is dropped and counted, and the writer logs the running count as a {@link Telemetry#DROPPED}
+ * record. The writer drains the ring in batches into a direct buffer and writes each batch with one channel write.
+ *
+ * <p>Records are 32 bytes, big-endian: type, nanosecond timestamp, a, b. {@code telemetry.log} is the current file;
+ * when it reaches {@code maxFileBytes} it becomes {@code telemetry.1.log}, older files move up one, and anything
+ * past {@code maxFiles} is deleted, so disk use stays bounded. Files are rotated between batches, so one may overrun
+ * the limit by up to a batch.
+ */
+public class TelemetryLog implements Telemetry {
+    public static final int RECORD_SIZE = 32;
+    private static final int FIELDS = 4;
+    private static final int BATCH = 256;
+    private static final long IDLE_NANOS = 50_000_000L;
+
+    private final File directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final long[] ring;
+    private final int capacity;
+    private final int mask;
+    /** Next slot the game thread writes; only the game thread advances it. */
+    private final AtomicLong head = new AtomicLong();
+    /** Next slot the writer reads; only the writer advances it. */
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private long cachedTail;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final ByteBuffer batch = ByteBuffer.allocateDirect((BATCH + 1) * RECORD_SIZE);
+    private FileChannel channel;
+    private long fileBytes;
+    private long droppedWritten;
+    private volatile IOException failure;
+
+    public TelemetryLog(File directory) {
+        this(directory, 4096, 1024 * 1024, 4);
+    }
+
+    /** @param capacity records the ring holds, rounded up to a power of two */
+    public TelemetryLog(File directory, int capacity, long maxFileBytes, int maxFiles) {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.ring = new long[this.capacity * FIELDS];
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "telemetry-writer");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    @Override
+    public void record(int type, long a, long b) {
+        long h = head.get();
+        if (h - cachedTail >= capacity) {
+            cachedTail = tail.get();
+            if (h - cachedTail >= capacity) {
+                dropped.lazySet(dropped.get() + 1);
+                return;
+            }
+        }
+        int i = (int) (h & mask) * FIELDS;
+        ring[i] = type;
+        ring[i + 1] = TimeUtils.nanoTime();
+        ring[i + 2] = a;
+        ring[i + 3] = b;
+        head.lazySet(h + 1);
+    }
+
+    /** Records dropped because the writer could not keep up. */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** Writes what is still queued, stops the writer and closes the log. */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Cannot write telemetry", failure);
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            while (true) {
+                boolean stopping = !running;
+                long t = tail.get();
+                long available = head.get() - t;
+                if (available == 0) {
+                    if (stopping) {
+                        writeDropped();
+                        break;
+                    }
+                    writeDropped();
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+                int count = (int) Math.min(available, BATCH);
+                batch.clear();
+                for (int r = 0; r < count; r++) {
+                    int i = (int) ((t + r) & mask) * FIELDS;
+                    batch.putLong(ring[i]);
+                    batch.putLong(ring[i + 1]);
+                    batch.putLong(ring[i + 2]);
+                    batch.putLong(ring[i + 3]);
+                }
+                tail.lazySet(t + count);
+                write();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeDropped() throws IOException {
+        long total = dropped.get();
+        if (total == droppedWritten) {
+            return;
+        }
+        droppedWritten = total;
+        batch.clear();
+        batch.putLong(DROPPED);
+        batch.putLong(TimeUtils.nanoTime());
+        batch.putLong(total);
+        batch.putLong(0L);
+        write();
+    }
+
+    private void write() throws IOException {
+        batch.flip();
+        if (channel == null) {
+            open();
+        }
+        if (fileBytes >= maxFileBytes) {
+            rotate();
+        }
+        while (batch.hasRemaining()) {
+            fileBytes += channel.write(batch);
+        }
+    }
+
+    private void rotate() throws IOException {
+        channel.close();
+        channel = null;
+        File current = new File(directory, "telemetry.log");
+        if (maxFiles <= 1) {
+            current.delete();
+        } else {
+            rotatedFile(maxFiles - 1).delete();
+            for (int i = maxFiles - 2; i >= 1; i--) {
+                rotatedFile(i).renameTo(rotatedFile(i + 1));
+            }
+            current.renameTo(rotatedFile(1));
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File current = new File(directory, "telemetry.log");
+        channel = new FileOutputStream(current, true).getChannel();
+        fileBytes = current.length();
+    }
+
+    private File rotatedFile(int index) {
+        return new File(directory, "telemetry." + index + ".log");
+    }
+}
@@ -0,0 +1,290 @@
+package com.natelaclaire.solitaire.tools;
+
+import com.natelaclaire.solitaire.bot.HeuristicPlayer;
+import com.natelaclaire.solitaire.bot.PlayerRunner;
+import com.natelaclaire.solitaire.game.Difficulty;
+import com.natelaclaire.solitaire.game.DifficultyIndex;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.solver.SolveResult;
+import com.natelaclaire.solitaire.solver.Solver;
+import com.natelaclaire.solitaire.storage.SolverCache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Rates a range of seeded deals by solver effort and bot win rate, then writes a {@link DifficultyIndex}.
+ *
+ * <p>Ratings are streamed to {@code ratings.bin} in fixed-size records, one chunk at a time, and
+ * {@code checkpoint.bin} records how far the run got, so an interrupted run resumes where it stopped. The checkpoint
+ * also records the seed range and draw count it was written for, and a run with different ones refuses to resume
+ * from it rather than mixing two runs' ratings in one file. The index is
+ * built with an on-disk counting sort over the 0-1000 rating range, so memory use does not grow with the number
+ * of deals. Solver results are looked up in and added to a {@link SolverCache}, {@code solver.cache} in the output
+ * directory unless another file is given, so re-rating a seed range only re-runs the bots.
+ *
+ * <p>Usage:
+ * {@code DealRatingPipeline <firstSeed> <endSeed> <outDir> [drawCount] [maxNodes] [botTrials] [cacheFile]}
+ */
+public class DealRatingPipeline {
+    public static final int MAX_RATING = 1000;
+    static final int RECORD_SIZE = 18;
+    private static final int CHECKPOINT_SIZE = 36;
+    private static final int CHUNK = 1024;
+    private static final byte STATUS_SOLVED = 0;
+    private static final byte STATUS_UNSOLVABLE = 1;
+    private static final byte STATUS_UNKNOWN = 2;
+
+    private final long firstSeed;
+    private final long endSeed;
+    private final File outDir;
+    private final int drawCount;
+    private final int maxNodes;
+    private final int botTrials;
+    private final Solver solver;
+    private final SolveResult result = new SolveResult();
+    private final SolverCache.Entry cached = new SolverCache.Entry();
+    private final PlayerRunner runner = new PlayerRunner();
+    private final HeuristicPlayer bot = new HeuristicPlayer();
+    private SolverCache cache;
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK * RECORD_SIZE);
+
+    public DealRatingPipeline(long firstSeed, long endSeed, File outDir, int drawCount, int maxNodes, int botTrials) {
+        if (endSeed <= firstSeed || endSeed - firstSeed > 0xffffffffL) {
+            throw new IllegalArgumentException("Seed range must be non-empty and span at most 2^32 seeds");
+        }
+        this.firstSeed = firstSeed;
+        this.endSeed = endSeed;
+        this.outDir = outDir;
+        this.drawCount = drawCount;
+        this.maxNodes = maxNodes;
+        this.botTrials = botTrials;
+        this.solver = new Solver(maxNodes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: DealRatingPipeline <firstSeed> <endSeed> <outDir> [drawCount] [maxNodes] [botTrials]"
+                + " [cacheFile]");
+            System.exit(1);
+        }
+        int drawCount = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int maxNodes = args.length > 4 ? Integer.parseInt(args[4]) : Solver.DEFAULT_MAX_NODES;
+        int botTrials = args.length > 5 ? Integer.parseInt(args[5]) : 16;
+        File outDir = new File(args[2]);
+        File cacheFile = args.length > 6 ? new File(args[6]) : new File(outDir, "solver.cache");
+        DealRatingPipeline pipeline = new DealRatingPipeline(Long.parseLong(args[0]), Long.parseLong(args[1]),
+            outDir, drawCount, maxNodes, botTrials);
+        try (SolverCache cache = SolverCache.openWriter(cacheFile, SolverCache.DEFAULT_CAPACITY)) {
+            pipeline.setCache(cache);
+            pipeline.rateAll();
+        }
+        pipeline.writeIndex();
+    }
+
+    /**
+     * Reuses deal results and proven-lost positions from {@code cache} and stores new ones in it; null disables
+     * caching.
+     */
+    public void setCache(SolverCache cache) {
+        this.cache = cache;
+        solver.setLostStore(cache);
+    }
+
+    public File getRatingsFile() {
+        return new File(outDir, "ratings.bin");
+    }
+
+    public File getCheckpointFile() {
+        return new File(outDir, "checkpoint.bin");
+    }
+
+    public File getIndexFile() {
+        return new File(outDir, "difficulty.idx");
+    }
+
+    /** Rates every seed not yet covered by the checkpoint. */
+    public void rateAll() throws IOException {
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Cannot create " + outDir);
+        }
+        long nextSeed = firstSeed;
+        long records = 0;
+        File checkpoint = getCheckpointFile();
+        if (checkpoint.exists()) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(checkpoint))) {
+                if (checkpoint.length() != CHECKPOINT_SIZE || in.readLong() != firstSeed || in.readLong() != endSeed
+                    || in.readInt() != drawCount) {
+                    throw new IOException(checkpoint + " was written for a different seed range or draw count;"
+                        + " use another output directory");
+                }
+                nextSeed = in.readLong();
+                records = in.readLong();
+            }
+        }
+        try (RandomAccessFile file = new RandomAccessFile(getRatingsFile(), "rw")) {
+            // Drop anything written after the last checkpoint.
+            file.setLength(records * RECORD_SIZE);
+            FileChannel channel = file.getChannel();
+            channel.position(file.length());
+            while (nextSeed < endSeed) {
+                chunk.clear();
+                long chunkEnd = Math.min(endSeed, nextSeed + CHUNK);
+                for (long seed = nextSeed; seed < chunkEnd; seed++) {
+                    rate(seed);
+                }
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                channel.force(false);
+                records += chunkEnd - nextSeed;
+                nextSeed = chunkEnd;
+                writeCheckpoint(nextSeed, records);
+            }
+        }
+    }
+
+    private void rate(long seed) {
+        SolveResult.Status solveStatus;
+        int nodes;
+        int length;
+        if (cache != null && cache.getDeal(seed, drawCount, cached) != null) {
+            solveStatus = cached.status;
+            nodes = cached.nodesExpanded;
+            length = cached.solutionLength;
+        } else {
+            solver.solve(GameState.newGame(seed), drawCount, result);
+            if (cache != null) {
+                cache.putDeal(seed, drawCount, result);
+            }
+            solveStatus = result.status;
+            nodes = result.nodesExpanded;
+            length = result.moves.size;
+        }
+        int wins = 0;
+        int trials = solveStatus == SolveResult.Status.UNSOLVABLE ? 0 : botTrials;
+        for (int trial = 0; trial < trials; trial++) {
+            if (runner.play(bot, seed, drawCount, seed * 31 + trial)) {
+                wins++;
+            }
+        }
+        float winRate = botTrials == 0 ? 0f : wins / (float) botTrials;
+        byte status;
+        switch (solveStatus) {
+            case SOLVED:
+                status = STATUS_SOLVED;
+                break;
+            case UNSOLVABLE:
+                status = STATUS_UNSOLVABLE;
+                break;
+            default:
+                status = STATUS_UNKNOWN;
+                break;
+        }
+        chunk.putLong(seed);
+        chunk.putShort((short) rating(nodes, length, winRate));
+        chunk.put(status);
+        chunk.put((byte) Math.min(255, wins));
+        chunk.putInt(nodes);
+        chunk.putShort((short) Math.min(Short.MAX_VALUE, length));
+    }
+
+    /** Combines search effort, solution length and bot losses into a 0-1000 rating; higher is harder. */
+    int rating(int nodesExpanded, int solutionLength, float winRate) {
+        double effort = Math.log1p(nodesExpanded) / Math.log1p(maxNodes);
+        double length = Math.min(1.0, solutionLength / 250.0);
+        double score = 0.4 * effort + 0.2 * length + 0.4 * (1.0 - winRate);
+        return (int) Math.round(Math.max(0.0, Math.min(1.0, score)) * MAX_RATING);
+    }
+
+    private void writeCheckpoint(long nextSeed, long records) throws IOException {
+        File checkpoint = getCheckpointFile();
+        File temp = new File(outDir, "checkpoint.tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp); DataOutputStream out = new DataOutputStream(stream)) {
+            out.writeLong(firstSeed);
+            out.writeLong(endSeed);
+            out.writeInt(drawCount);
+            out.writeLong(nextSeed);
+            out.writeLong(records);
+            out.flush();
+            stream.getFD().sync();
+        }
+        Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Sorts the solved deals by rating into the index file and splits them into equal-sized buckets. */
+    public void writeIndex() throws IOException {
+        int[] histogram = new int[MAX_RATING + 1];
+        int solved = 0;
+        try (DataInputStream in = openRatings()) {
+            for (long r = getRatingsFile().length() / RECORD_SIZE; r > 0; r--) {
+                in.readLong();
+                int rating = in.readShort();
+                byte status = in.readByte();
+                skipRecordTail(in);
+                if (status == STATUS_SOLVED) {
+                    histogram[rating]++;
+                    solved++;
+                }
+            }
+        }
+
+        int[] next = new int[MAX_RATING + 1];
+        for (int rating = 1; rating <= MAX_RATING; rating++) {
+            next[rating] = next[rating - 1] + histogram[rating - 1];
+        }
+        int buckets = Difficulty.values().length;
+        int header = DifficultyIndex.headerSize(buckets);
+        File index = getIndexFile();
+        try (RandomAccessFile file = new RandomAccessFile(index, "rw")) {
+            file.setLength(0);
+            file.writeInt(DifficultyIndex.MAGIC);
+            file.writeInt(DifficultyIndex.VERSION);
+            file.writeLong(firstSeed);
+            file.writeInt(buckets);
+            for (int b = 0; b <= buckets; b++) {
+                file.writeInt((int) ((long) solved * b / buckets));
+            }
+            FileChannel channel = file.getChannel();
+            ByteBuffer entry = ByteBuffer.allocate(DifficultyIndex.ENTRY_SIZE);
+            try (DataInputStream in = openRatings()) {
+                for (long r = getRatingsFile().length() / RECORD_SIZE; r > 0; r--) {
+                    long seed = in.readLong();
+                    int rating = in.readShort();
+                    byte status = in.readByte();
+                    skipRecordTail(in);
+                    if (status != STATUS_SOLVED) {
+                        continue;
+                    }
+                    entry.clear();
+                    entry.putInt((int) (seed - firstSeed));
+                    entry.putShort((short) rating);
+                    entry.flip();
+                    channel.write(entry, header + (long) next[rating]++ * DifficultyIndex.ENTRY_SIZE);
+                }
+            }
+        }
+    }
+
+    private static void skipRecordTail(DataInputStream in) throws IOException {
+        in.readByte();
+        in.readInt();
+        in.readShort();
+    }
+
+    private DataInputStream openRatings() throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(getRatingsFile()), 64 * 1024));
+    }
+}
@@ -0,0 +1,181 @@
+package com.natelaclaire.solitaire.tools;
+
+import com.badlogic.gdx.utils.Base64Coder;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.solver.SolutionDatabase;
+import com.natelaclaire.solitaire.solver.SolveResult;
+import com.natelaclaire.solitaire.solver.Solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Solves a range of seeded deals and writes the winning lines as a {@link SolutionDatabase}. Chunks are streamed to
+ * a temporary file as they fill, then copied after the index, so memory use does not grow with the seed range.
+ * Given an html directory, the same database is also split into the Base64 files read by
+ * {@code HttpSolutionSource}; {@code html/webapp/solutions} is copied into the html build as-is.
+ *
+ * <p>Usage:
+ * {@code SolutionDatabaseWriter <firstSeed> <endSeed> <outFile> [drawCount] [maxNodes] [chunkSeeds] [htmlDir]}
+ */
+public class SolutionDatabaseWriter {
+    public static final int DEFAULT_CHUNK_SEEDS = 256;
+
+    private final long firstSeed;
+    private final int seedCount;
+    private final int drawCount;
+    private final int chunkSeeds;
+    private final Solver solver;
+    private final SolveResult result = new SolveResult();
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+
+    public SolutionDatabaseWriter(long firstSeed, long endSeed, int drawCount, int maxNodes, int chunkSeeds) {
+        if (endSeed <= firstSeed || endSeed - firstSeed > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Seed range must be non-empty and span at most 2^31 - 1 seeds");
+        }
+        this.firstSeed = firstSeed;
+        this.seedCount = (int) (endSeed - firstSeed);
+        this.drawCount = drawCount;
+        this.chunkSeeds = chunkSeeds;
+        this.solver = new Solver(maxNodes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: SolutionDatabaseWriter <firstSeed> <endSeed> <outFile> [drawCount] [maxNodes]"
+                + " [chunkSeeds] [htmlDir]");
+            System.exit(1);
+        }
+        int drawCount = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+        int maxNodes = args.length > 4 ? Integer.parseInt(args[4]) : Solver.DEFAULT_MAX_NODES;
+        int chunkSeeds = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_CHUNK_SEEDS;
+        SolutionDatabaseWriter writer = new SolutionDatabaseWriter(Long.parseLong(args[0]), Long.parseLong(args[1]),
+            drawCount, maxNodes, chunkSeeds);
+        File outFile = new File(args[2]);
+        writer.write(outFile);
+        if (args.length > 6) {
+            split(outFile, new File(args[6]));
+        }
+    }
+
+    public void write(File outFile) throws IOException {
+        File parent = outFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        int chunks = (seedCount + chunkSeeds - 1) / chunkSeeds;
+        int[] offsets = new int[chunks + 1];
+        File data = new File(outFile.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(data))) {
+            int offset = 0;
+            for (int c = 0; c < chunks; c++) {
+                offsets[c] = offset;
+                chunk.reset();
+                long chunkStart = firstSeed + (long) c * chunkSeeds;
+                long chunkEnd = Math.min(firstSeed + seedCount, chunkStart + chunkSeeds);
+                for (long seed = chunkStart; seed < chunkEnd; seed++) {
+                    solver.solve(GameState.newGame(seed), drawCount, result);
+                    if (result.status != SolveResult.Status.SOLVED) {
+                        continue;
+                    }
+                    writeVarint(seed - chunkStart);
+                    writeVarint(result.moves.size);
+                    for (int i = 0; i < result.moves.size; i++) {
+                        writeVarint(SolutionDatabase.packMove(result.moves.get(i)));
+                    }
+                }
+                chunk.writeTo(out);
+                offset += chunk.size();
+            }
+            offsets[chunks] = offset;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            out.writeInt(SolutionDatabase.MAGIC);
+            out.writeInt(SolutionDatabase.VERSION);
+            out.writeLong(firstSeed);
+            out.writeInt(seedCount);
+            out.writeInt(chunkSeeds);
+            out.writeInt(drawCount);
+            out.writeInt(SolutionDatabase.indexSize(chunks));
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            try (InputStream in = new BufferedInputStream(new FileInputStream(data))) {
+                copy(in, out, Long.MAX_VALUE);
+            }
+        }
+        if (!data.delete()) {
+            throw new IOException("Cannot delete " + data);
+        }
+    }
+
+    /** Writes {@code index.txt} and one {@code chunk-N.txt} per chunk of {@code database} into {@code dir}. */
+    public static void split(File database, File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(database))) {
+            byte[] header = readFully(in, SolutionDatabase.HEADER_SIZE);
+            int dataStart = SolutionDatabase.readInt(header, SolutionDatabase.HEADER_SIZE - 4);
+            byte[] index = new byte[dataStart];
+            System.arraycopy(header, 0, index, 0, header.length);
+            System.arraycopy(readFully(in, dataStart - header.length), 0, index, header.length,
+                dataStart - header.length);
+            writeBase64(new File(dir, "index.txt"), index);
+            int chunks = (dataStart - SolutionDatabase.HEADER_SIZE) / 4 - 1;
+            for (int c = 0; c < chunks; c++) {
+                int start = SolutionDatabase.readInt(index, SolutionDatabase.HEADER_SIZE + c * 4);
+                int end = SolutionDatabase.readInt(index, SolutionDatabase.HEADER_SIZE + c * 4 + 4);
+                writeBase64(new File(dir, "chunk-" + c + ".txt"), readFully(in, end - start));
+            }
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7fL) != 0) {
+            chunk.write((int) (value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        chunk.write((int) value);
+    }
+
+    private static void writeBase64(File file, byte[] data) throws IOException {
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII)) {
+            out.write(Base64Coder.encode(data));
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        if (copy(in, out, length) != length) {
+            throw new IOException("Solution database is truncated");
+        }
+        return out.toByteArray();
+    }
+
+    private static long copy(InputStream in, OutputStream out, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long copied = 0;
+        while (copied < limit) {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied));
+            if (n < 0) {
+                break;
+            }
+            out.write(buffer, 0, n);
+            copied += n;
+        }
+        return copied;
+    }
+}
@@ -1,22 +1,56 @@
 package com.natelaclaire.solitaire.ui;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.ObjectMap;
 import com.natelaclaire.solitaire.game.Card;
+import com.natelaclaire.solitaire.game.Suit;
+
+import java.util.Arrays;
 
 public class Assets {
+    /** Written by the {@code packTextures} Gradle task; see the root build.gradle. */
+    private static final String ATLAS_DIR = "atlas/";
+    private static final String CARDS_DIR = "Card_Game_GFX/Cards/";
+    private static final String BACKS_ATLAS = ATLAS_DIR + "backs.atlas";
+    /** Time per frame spent uploading art to the GPU while something is loading. */
+    public static final int LOAD_MILLIS_PER_FRAME = 8;
+
+    private final AssetManager manager;
+    private final TextureCache cache;
     private Texture whiteTex;
-    private Texture backTexture;
     private TextureRegion backRegion;
-    private ObjectMap<String, TextureRegion> cardRegions;
-    private Array<Texture> cardTextures;
+    /** Regions of the shown front set, indexed by {@link Card#index()}. */
+    private final TextureRegion[] cardRegions = new TextureRegion[52];
+    private String frontPrefix;
+    private String backName;
+    /** Cache paths held for the shown fronts and back, released when they are replaced. */
+    private Array<String> frontPaths = new Array<>();
+    private Array<String> backPaths = new Array<>();
+    /** The art asked for by the last {@link #reloadCardArt}, shown once loaded; null when already shown. */
+    private String pendingFront;
+    private String pendingBack;
+    private Array<String> pendingFrontPaths = new Array<>();
+    private Array<String> pendingBackPaths = new Array<>();
+    private int artVersion;
 
     public Assets() {
-        whiteTex = createSolidTexture(Color.WHITE);
+        this(new AssetManager(), TextureCache.DEFAULT_BUDGET_BYTES);
+    }
+
+    public Assets(AssetManager manager, long textureBudgetBytes) {
+        this(manager, textureBudgetBytes, createSolidTexture(Color.WHITE));
+    }
+
+    Assets(AssetManager manager, long textureBudgetBytes, Texture whiteTex) {
+        this.manager = manager;
+        this.cache = new TextureCache(manager, textureBudgetBytes);
+        this.whiteTex = whiteTex;
     }
 
     public Texture getWhiteTex() {
@@ -27,35 +61,97 @@ public class Assets {
         return backRegion;
     }
 
-    public TextureRegion getCardRegion(Card card, String frontPrefix) {
-        if (cardRegions == null) {
-            return null;
-        }
-        return cardRegions.get(card.assetKey(frontPrefix));
+    /** Returns the shown front for {@code card}, or null before any art has loaded. Called for every card drawn. */
+    public TextureRegion getCardRegion(Card card) {
+        return cardRegions[card.index()];
+    }
+
+    /** Changes whenever different fronts or a different back are put on screen. */
+    public int getArtVersion() {
+        return artVersion;
     }
 
+    public TextureCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Starts switching to the given front set and back. Only the part that changed is loaded, in the background;
+     * the current art stays on screen until {@link #update} has the new art ready, so a theme switch never stalls
+     * a frame. Art used recently is still in the {@link TextureCache} and switches on the next update.
+     */
     public void reloadCardArt(String frontPrefix, String backName) {
-        disposeCardArt();
-        cardRegions = new ObjectMap<>();
-        cardTextures = new Array<>();
-
-        backTexture = new Texture("Card_Game_GFX/Cards/card_backs/" + backName);
-        backTexture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
-        backRegion = new TextureRegion(backTexture);
-
-        boolean simple = "simplecard".equals(frontPrefix);
-        String clubsToken = simple ? "club" : "clubs";
-        String[] suits = {clubsToken, "diamond", "heart", "spade"};
-        for (String suit : suits) {
-            for (int rank = 1; rank <= 13; rank++) {
-                String name = frontPrefix + "_" + suit + "_" + rank;
-                String path = "Card_Game_GFX/Cards/" + name + ".png";
-                Texture texture = new Texture(path);
-                texture.setFilter(Texture.TextureFilter.Linear, Texture.TextureFilter.Linear);
-                cardTextures.add(texture);
-                cardRegions.put(name, new TextureRegion(texture));
+        if (!frontPrefix.equals(pendingFront != null ? pendingFront : this.frontPrefix)) {
+            releaseAll(pendingFrontPaths);
+            pendingFront = frontPrefix.equals(this.frontPrefix) ? null : frontPrefix;
+            if (pendingFront != null) {
+                String atlasPath = ATLAS_DIR + frontPrefix + ".atlas";
+                if (Gdx.files.internal(atlasPath).exists()) {
+                    acquire(atlasPath, pendingFrontPaths);
+                } else {
+                    for (Suit suit : Suit.values()) {
+                        for (int rank = 1; rank <= 13; rank++) {
+                            acquire(CARDS_DIR + new Card(suit, rank).assetKey(frontPrefix) + ".png",
+                                pendingFrontPaths);
+                        }
+                    }
+                }
             }
         }
+        if (!backName.equals(pendingBack != null ? pendingBack : this.backName)) {
+            releaseAll(pendingBackPaths);
+            pendingBack = backName.equals(this.backName) ? null : backName;
+            if (pendingBack != null) {
+                acquire(Gdx.files.internal(BACKS_ATLAS).exists() ? BACKS_ATLAS : CARDS_DIR + "card_backs/" + backName,
+                    pendingBackPaths);
+            }
+        }
+        update();
+    }
+
+    /**
+     * Uploads pending art for up to {@link #LOAD_MILLIS_PER_FRAME} and shows it once complete. Call once a frame.
+     * Returns true when nothing is left to load.
+     */
+    public boolean update() {
+        if (pendingFront == null && pendingBack == null) {
+            return true;
+        }
+        cache.update(LOAD_MILLIS_PER_FRAME);
+        if (pendingFront != null && allLoaded(pendingFrontPaths)) {
+            showFronts();
+        }
+        if (pendingBack != null && allLoaded(pendingBackPaths)) {
+            showBack();
+        }
+        return pendingFront == null && pendingBack == null;
+    }
+
+    /** Loads all pending art before returning, for callers that cannot draw a loading screen. */
+    public void finishLoading() {
+        cache.finishLoading();
+        update();
+    }
+
+    /** True once a front set and a back are on screen, even if a switch to other art is still loading. */
+    public boolean isReady() {
+        return frontPrefix != null && backName != null;
+    }
+
+    /** Fraction of the pending art loaded so far, from 0 to 1; 1 when nothing is pending. */
+    public float getProgress() {
+        int total = pendingFrontPaths.size + pendingBackPaths.size;
+        if (total == 0) {
+            return 1f;
+        }
+        int loaded = 0;
+        for (int i = 0; i < pendingFrontPaths.size; i++) {
+            loaded += cache.isLoaded(pendingFrontPaths.get(i)) ? 1 : 0;
+        }
+        for (int i = 0; i < pendingBackPaths.size; i++) {
+            loaded += cache.isLoaded(pendingBackPaths.get(i)) ? 1 : 0;
+        }
+        return loaded / (float) total;
     }
 
     public void dispose() {
@@ -63,25 +159,100 @@ public class Assets {
             whiteTex.dispose();
             whiteTex = null;
         }
-        disposeCardArt();
+        cache.dispose();
+        manager.dispose();
+        frontPaths.clear();
+        backPaths.clear();
+        pendingFrontPaths.clear();
+        pendingBackPaths.clear();
+        Arrays.fill(cardRegions, null);
+        backRegion = null;
+        frontPrefix = null;
+        backName = null;
+        pendingFront = null;
+        pendingBack = null;
     }
 
-    private void disposeCardArt() {
-        if (backTexture != null) {
-            backTexture.dispose();
-            backTexture = null;
+    private void showFronts() {
+        String atlasPath = ATLAS_DIR + pendingFront + ".atlas";
+        TextureAtlas atlas = cache.getAtlas(atlasPath);
+        if (atlas != null) {
+            findFronts(atlas, pendingFront, cardRegions);
+        } else {
+            for (Suit suit : Suit.values()) {
+                for (int rank = 1; rank <= 13; rank++) {
+                    Card card = new Card(suit, rank);
+                    cardRegions[card.index()] =
+                        new TextureRegion(cache.getTexture(CARDS_DIR + card.assetKey(pendingFront) + ".png"));
+                }
+            }
         }
-        if (cardTextures != null) {
-            for (Texture texture : cardTextures) {
-                texture.dispose();
+        releaseAll(frontPaths);
+        Array<String> shown = frontPaths;
+        frontPaths = pendingFrontPaths;
+        pendingFrontPaths = shown;
+        frontPrefix = pendingFront;
+        pendingFront = null;
+        artVersion++;
+    }
+
+    /**
+     * Fills {@code regions} with the 52 fronts of set {@code prefix}. Throws if the atlas lacks one, e.g. because it
+     * was packed with the trailing rank split off as a region index.
+     */
+    static void findFronts(TextureAtlas atlas, String prefix, TextureRegion[] regions) {
+        for (Suit suit : Suit.values()) {
+            for (int rank = 1; rank <= 13; rank++) {
+                Card card = new Card(suit, rank);
+                String name = card.assetKey(prefix);
+                TextureRegion region = atlas.findRegion(name);
+                if (region == null) {
+                    throw new IllegalStateException("No region " + name + " in the " + prefix + " atlas");
+                }
+                regions[card.index()] = region;
             }
         }
-        cardTextures = null;
-        cardRegions = null;
-        backRegion = null;
     }
 
-    private Texture createSolidTexture(Color color) {
+        private void showBack() {
+        TextureAtlas atlas = cache.getAtlas(BACKS_ATLAS);
+        if (atlas != null) {
+            String name = pendingBack.endsWith(".png") ? pendingBack.substring(0, pendingBack.length() - 4) : pendingBack;
+            backRegion = atlas.findRegion(name);
+        } else {
+            backRegion = new TextureRegion(cache.getTexture(CARDS_DIR + "card_backs/" + pendingBack));
+        }
+        releaseAll(backPaths);
+        Array<String> shown = backPaths;
+        backPaths = pendingBackPaths;
+        pendingBackPaths = shown;
+        backName = pendingBack;
+        pendingBack = null;
+        artVersion++;
+    }
+
+    private void acquire(String path, Array<String> held) {
+        cache.acquire(path);
+        held.add(path);
+    }
+
+    private boolean allLoaded(Array<String> paths) {
+        for (int i = 0; i < paths.size; i++) {
+            if (!cache.isLoaded(paths.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void releaseAll(Array<String> paths) {
+        for (int i = 0; i < paths.size; i++) {
+            cache.release(paths.get(i));
+        }
+        paths.clear();
+    }
+
+    private static Texture createSolidTexture(Color color) {
         Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
         pixmap.setColor(color);
         pixmap.fill();
@@ -72,6 +72,26 @@ public class GameLayout {
     public float backNextY;
     public float backNextW;
     public float backNextH;
+    public float dailyX;
+    public float dailyY;
+    public float dailyW;
+    public float dailyH;
+    public float winnableOnX;
+    public float winnableOnY;
+    public float winnableOnW;
+    public float winnableOnH;
+    public float winnableOffX;
+    public float winnableOffY;
+    public float winnableOffW;
+    public float winnableOffH;
+    public float autoPlayOnX;
+    public float autoPlayOnY;
+    public float autoPlayOnW;
+    public float autoPlayOnH;
+    public float autoPlayOffX;
+    public float autoPlayOffY;
+    public float autoPlayOffW;
+    public float autoPlayOffH;
 
     public void update(FitViewport viewport, GameState state, BitmapFont font, GlyphLayout glyphLayout) {
         worldWidth = viewport.getWorldWidth();
@@ -196,6 +216,41 @@ public class GameLayout {
         backNextY = backPrevY;
         backNextW = arrowW;
         backNextH = arrowH;
+
+        y -= optionsRowHeight;
+        dailyX = optionsX + optionsWidth * 0.35f;
+        dailyY = y - buttonH * 0.65f;
+        dailyW = buttonW;
+        dailyH = buttonH;
+
+        y -= optionsRowHeight;
+        winnableOnX = optionsX + optionsWidth * 0.35f;
+        winnableOnY = y - buttonH * 0.65f;
+        winnableOnW = buttonW;
+        winnableOnH = buttonH;
+        winnableOffX = winnableOnX + buttonW + optionsPadding * 0.6f;
+        winnableOffY = winnableOnY;
+        winnableOffW = buttonW;
+        winnableOffH = buttonH;
+
+        y -= optionsRowHeight;
+        autoPlayOnX = optionsX + optionsWidth * 0.35f;
+        autoPlayOnY = y - buttonH * 0.65f;
+        autoPlayOnW = buttonW;
+        autoPlayOnH = buttonH;
+        autoPlayOffX = autoPlayOnX + buttonW + optionsPadding * 0.6f;
+        autoPlayOffY = autoPlayOnY;
+        autoPlayOffW = buttonW;
+        autoPlayOffH = buttonH;
+    }
+
+    /** Returns the y of card {@code index} in tableau pile {@code pile}, without allocating. */
+    public float tableauCardY(Pile pile, int index) {
+        float y = pile.y;
+        for (int i = 0; i < index; i++) {
+            y -= pile.cards.get(i).faceUp ? tableauSpacingFaceUp : tableauSpacingFaceDown;
+        }
+        return y;
     }
 
     public float[] buildTableauCardPositions(Pile pile) {
@@ -1,60 +1,169 @@
 package com.natelaclaire.solitaire.ui;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.GlyphLayout;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.HdpiUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ScreenUtils;
 import com.natelaclaire.solitaire.game.Card;
 import com.natelaclaire.solitaire.game.GameEngine;
 import com.natelaclaire.solitaire.game.GameState;
 import com.natelaclaire.solitaire.game.Pile;
 import com.natelaclaire.solitaire.game.PileType;
 
+/**
+ * Draws the board. Nothing here allocates in steady state, so a frame produces no garbage: labels derived from
+ * changing values are rebuilt only when the value changes, and pile geometry is walked in place. Text is drawn from
+ * {@link TextLabel}s, so glyphs are laid out only when the text or the font scale changes.
+ */
 public class GameRenderer {
     private static final Color TABLE_COLOR = new Color(0.10f, 0.45f, 0.18f, 1f);
     private static final Color CARD_FACE = new Color(0.97f, 0.97f, 0.94f, 1f);
     private static final Color CARD_BACK = new Color(0.16f, 0.32f, 0.62f, 1f);
     private static final Color OUTLINE_COLOR = new Color(0f, 0f, 0f, 0.45f);
 
-    private final SpriteBatch batch;
+    private final Batch batch;
     private final BitmapFont font;
-    private final GlyphLayout layout;
     private final Assets assets;
     private final GameLayout layoutData;
     private final UiState ui;
-
-    public GameRenderer(SpriteBatch batch, BitmapFont font, GlyphLayout layout, Assets assets, GameLayout layoutData,
-                        UiState ui) {
+    /** The board without the dragged cards, drawn once per drag and reused every frame until something changes. */
+    private FrameBuffer boardCache;
+    private TextureRegion boardRegion;
+    private boolean boardDirty = true;
+    private int boardArtVersion;
+    private int screenX;
+    private int screenY;
+    private int screenWidth;
+    private int screenHeight;
+    private int scoreShown = Integer.MIN_VALUE;
+    private String scoreLabel;
+    private String backLabelName;
+    private String backLabel;
+    /** Labels for fixed strings, keyed by their text. */
+    private final ObjectMap<String, TextLabel> labels = new ObjectMap<>();
+    private final TextLabel scoreText;
+    private final TextLabel winnableText;
+    private final TextLabel backText;
+    private final TextLabel dailyBestText;
+    private final TextPanel rulesPanel;
+    private final Rectangle rulesScissor = new Rectangle();
+    /** Set while drawing into {@link #boardCache}, whose origin is the corner of the screen area, not the window. */
+    private boolean drawingBoardCache;
+
+    public GameRenderer(Batch batch, BitmapFont font, Assets assets, GameLayout layoutData, UiState ui) {
         this.batch = batch;
         this.font = font;
-        this.layout = layout;
         this.assets = assets;
         this.layoutData = layoutData;
         this.ui = ui;
+        scoreText = new TextLabel(font);
+        winnableText = new TextLabel(font);
+        backText = new TextLabel(font);
+        dailyBestText = new TextLabel(font);
+        rulesPanel = new TextPanel(font);
     }
 
     public void render(GameEngine engine) {
-        GameState state = engine.getState();
-        drawPiles(state, engine);
+        if (ui.dragging && ui.selectedPile != null && ui.selectedIndex >= 0 && screenWidth > 0 && screenHeight > 0) {
+            if (boardDirty || boardCache == null || boardArtVersion != assets.getArtVersion()) {
+                renderBoardCache(engine);
+            }
+            // The cache is opaque and already holds the table, so it replaces what is on screen outright.
+            batch.disableBlending();
+            batch.draw(boardRegion, 0f, 0f, layoutData.worldWidth, layoutData.worldHeight);
+            batch.enableBlending();
+            drawDraggedCards(engine);
+            return;
+        }
+        // Outside a drag every frame follows a change anyway, and a drag starting hides the cards it picks up.
+        boardDirty = true;
+        drawPiles(engine.getState(), engine);
         if (ui.dragging && ui.selectedPile != null && ui.selectedIndex >= 0) {
             drawDraggedCards(engine);
         }
     }
 
+    /** Marks the cached board stale; call when the game state, layout or anything else drawn on the board changes. */
+    public void invalidateBoard() {
+        boardDirty = true;
+    }
+
+    /** Sets the screen area the world is drawn to, in logical pixels, as given by the viewport. */
+    public void resize(int screenX, int screenY, int screenWidth, int screenHeight) {
+        this.screenX = screenX;
+        this.screenY = screenY;
+        this.screenWidth = screenWidth;
+        this.screenHeight = screenHeight;
+        disposeBoardCache();
+    }
+
+    public void dispose() {
+        disposeBoardCache();
+    }
+
+    /** Draws a progress bar in place of the board while the first card art loads. */
+    public void renderLoading(float progress) {
+        float barWidth = layoutData.worldWidth * 0.4f;
+        float barHeight = Math.max(6f, layoutData.worldHeight * 0.02f);
+        float x = (layoutData.worldWidth - barWidth) * 0.5f;
+        float y = (layoutData.worldHeight - barHeight) * 0.5f;
+        batch.setColor(0f, 0f, 0f, 0.4f);
+        batch.draw(assets.getWhiteTex(), x, y, barWidth, barHeight);
+        batch.setColor(CARD_FACE);
+        batch.draw(assets.getWhiteTex(), x, y, barWidth * progress, barHeight);
+        batch.setColor(Color.WHITE);
+        drawOutline(x, y, barWidth, barHeight);
+    }
+
     public Color getTableColor() {
         return TABLE_COLOR;
     }
 
+    private void renderBoardCache(GameEngine engine) {
+        if (boardCache == null) {
+            boardCache = new FrameBuffer(Pixmap.Format.RGBA8888, HdpiUtils.toBackBufferX(screenWidth),
+                HdpiUtils.toBackBufferY(screenHeight), false);
+            boardRegion = new TextureRegion(boardCache.getColorBufferTexture());
+            boardRegion.flip(false, true);
+        }
+        batch.end();
+        boardCache.begin();
+        ScreenUtils.clear(TABLE_COLOR);
+        batch.begin();
+        drawingBoardCache = true;
+        drawPiles(engine.getState(), engine);
+        drawingBoardCache = false;
+        batch.end();
+        boardCache.end();
+        HdpiUtils.glViewport(screenX, screenY, screenWidth, screenHeight);
+        batch.begin();
+        boardDirty = false;
+        boardArtVersion = assets.getArtVersion();
+    }
+
+    private void disposeBoardCache() {
+        if (boardCache != null) {
+            boardCache.dispose();
+            boardCache = null;
+            boardRegion = null;
+        }
+        boardDirty = true;
+    }
+
     private void drawPiles(GameState state, GameEngine engine) {
         drawPile(state.stock, engine);
         drawWastePile(state.waste, engine);
-        for (Pile foundation : state.foundations) {
-            drawPile(foundation, engine);
+        for (int i = 0; i < state.foundations.size; i++) {
+            drawPile(state.foundations.get(i), engine);
         }
-        for (Pile pile : state.tableau) {
-            drawPile(pile, engine);
+        for (int i = 0; i < state.tableau.size; i++) {
+            drawPile(state.tableau.get(i), engine);
         }
 
         if (!ui.dragging && ui.selectedPile != null && ui.selectedIndex >= 0) {
@@ -136,7 +245,7 @@ public class GameRenderer {
 
     private void drawCard(float x, float y, Card card) {
         if (card.faceUp) {
-            TextureRegion region = assets.getCardRegion(card, ui.frontPrefix);
+            TextureRegion region = assets.getCardRegion(card);
             if (region != null) {
                 batch.draw(region, x, y, layoutData.cardWidth, layoutData.cardHeight);
             } else {
@@ -170,16 +279,10 @@ public class GameRenderer {
         float y = ui.selectedPile.y;
         float height = layoutData.cardHeight;
         if (ui.selectedPile.type == PileType.TABLEAU) {
-            float[] positions = layoutData.buildTableauCardPositions(ui.selectedPile);
-            float minY = positions[ui.selectedIndex];
-            float maxY = positions[ui.selectedIndex] + layoutData.cardHeight;
-            for (int i = ui.selectedIndex + 1; i < ui.selectedPile.cards.size; i++) {
-                float cy = positions[i];
-                minY = Math.min(minY, cy);
-                maxY = Math.max(maxY, cy + layoutData.cardHeight);
-            }
-            y = minY;
-            height = maxY - minY;
+            // Cards only ever step downwards, so the selection runs from the last card up to the selected one.
+            float top = layoutData.tableauCardY(ui.selectedPile, ui.selectedIndex);
+            y = layoutData.tableauCardY(ui.selectedPile, ui.selectedPile.cards.size - 1);
+            height = top + layoutData.cardHeight - y;
         } else if (ui.selectedPile.type == PileType.WASTE) {
             int size = ui.selectedPile.cards.size;
             int visible = engine.getDrawCount() == 3 ? 3 : 1;
@@ -194,27 +297,14 @@ public class GameRenderer {
     }
 
     private void drawDraggedCards(GameEngine engine) {
-        Array<Card> moving = getSelectedCards();
-        if (moving.size == 0) {
+        if (ui.selectedPile == null || ui.selectedIndex < 0) {
             return;
         }
         float y = ui.dragY;
-        for (int i = 0; i < moving.size; i++) {
-            Card card = moving.get(i);
-            drawCard(ui.dragX, y, card);
-            y -= layoutData.tableauSpacingFaceUp;
-        }
-    }
-
-    private Array<Card> getSelectedCards() {
-        Array<Card> moving = new Array<>();
-        if (ui.selectedPile == null || ui.selectedIndex < 0) {
-            return moving;
-        }
         for (int i = ui.selectedIndex; i < ui.selectedPile.cards.size; i++) {
-            moving.add(ui.selectedPile.cards.get(i));
+            drawCard(ui.dragX, y, ui.selectedPile.cards.get(i));
+            y -= layoutData.tableauSpacingFaceUp;
         }
-        return moving;
     }
 
     private void drawWinBanner() {
@@ -249,18 +339,19 @@ public class GameRenderer {
         batch.draw(assets.getWhiteTex(), x, y, w, h);
         batch.setColor(Color.WHITE);
         drawOutline(x, y, w, h);
-        font.setColor(Color.WHITE);
-        layout.setText(font, text);
-        float textX = x + (w - layout.width) * 0.5f;
-        float textY = y + (h + layout.height) * 0.5f;
-        font.draw(batch, layout, textX, textY);
+        drawCentered(label(text), x, y, w, h);
     }
 
     private void drawScore(GameEngine engine) {
-        font.setColor(Color.WHITE);
-        String text = "Score: " + engine.getScore();
-        layout.setText(font, text);
-        font.draw(batch, layout, layoutData.scoreX, layoutData.scoreY);
+        if (engine.getScore() != scoreShown) {
+            scoreShown = engine.getScore();
+            scoreLabel = "Score: " + scoreShown;
+        }
+        scoreText.setText(scoreLabel).draw(batch, layoutData.scoreX, layoutData.scoreY);
+        if (ui.showWinnable) {
+            winnableText.setText(ui.winnableLabel).draw(batch, layoutData.scoreX,
+                layoutData.scoreY + font.getLineHeight());
+        }
     }
 
     private void drawRulesOverlay() {
@@ -271,31 +362,19 @@ public class GameRenderer {
 
         float padding = layoutData.rulesWidth * 0.05f;
         float titleY = layoutData.rulesY + layoutData.rulesHeight - padding;
-        font.setColor(Color.WHITE);
-        layout.setText(font, "Rules");
-        font.draw(batch, layout, layoutData.rulesX + padding, titleY);
+        label("Rules").draw(batch, layoutData.rulesX + padding, titleY);
 
-        layout.setText(font, "Close");
-        float closeX = layoutData.rulesX + layoutData.rulesWidth - padding - layout.width;
+        TextLabel close = label("Close");
+        float closeX = layoutData.rulesX + layoutData.rulesWidth - padding - close.getWidth();
         float closeY = titleY;
-        font.draw(batch, layout, closeX, closeY);
+        close.draw(batch, closeX, closeY);
 
-        float contentTop = titleY - layout.height - padding * 0.5f;
+        float contentTop = titleY - close.getHeight() - padding * 0.5f;
         float contentBottom = layoutData.rulesY + padding;
-        float lineHeight = font.getLineHeight();
-        if (ui.rulesLines != null) {
-            float y = contentTop - ui.rulesScroll;
-            for (int i = 0; i < ui.rulesLines.size; i++) {
-                String line = ui.rulesLines.get(i);
-                if (y < contentBottom - lineHeight) {
-                    break;
-                }
-                if (y <= contentTop + lineHeight) {
-                    font.draw(batch, line, layoutData.rulesX + padding, y);
-                }
-                y -= lineHeight * 1.05f;
-            }
-        }
+        rulesPanel.setLines(ui.rulesLines);
+        Rectangle scissor = toScissor(layoutData.rulesX, contentBottom, layoutData.rulesWidth,
+            contentTop - contentBottom, rulesScissor) ? rulesScissor : null;
+        rulesPanel.draw(batch, layoutData.rulesX + padding, contentTop, contentBottom, ui.rulesScroll, scissor);
     }
 
     private void drawOptionsOverlay(GameEngine engine) {
@@ -305,36 +384,57 @@ public class GameRenderer {
         drawOutline(layoutData.optionsX, layoutData.optionsY, layoutData.optionsWidth, layoutData.optionsHeight);
 
         float y = layoutData.optionsY + layoutData.optionsHeight - layoutData.optionsPadding;
-        font.setColor(Color.WHITE);
-        layout.setText(font, "Options");
-        font.draw(batch, layout, layoutData.optionsX + layoutData.optionsPadding, y);
+        label("Options").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
 
         y -= layoutData.optionsRowHeight;
-        layout.setText(font, "Draw");
-        font.draw(batch, layout, layoutData.optionsX + layoutData.optionsPadding, y);
+        label("Draw").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
         drawOptionButton(layoutData.draw1X, layoutData.draw1Y, layoutData.draw1W, layoutData.draw1H, "1",
             engine.getDrawCount() == 1);
         drawOptionButton(layoutData.draw3X, layoutData.draw3Y, layoutData.draw3W, layoutData.draw3H, "3",
             engine.getDrawCount() == 3);
 
         y -= layoutData.optionsRowHeight;
-        layout.setText(font, "Front");
-        font.draw(batch, layout, layoutData.optionsX + layoutData.optionsPadding, y);
+        label("Front").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
         drawOptionButton(layoutData.frontClassicX, layoutData.frontClassicY, layoutData.frontClassicW,
             layoutData.frontClassicH, "Classic", "card".equals(ui.frontPrefix));
         drawOptionButton(layoutData.frontSimpleX, layoutData.frontSimpleY, layoutData.frontSimpleW,
             layoutData.frontSimpleH, "Simple", "simplecard".equals(ui.frontPrefix));
 
         y -= layoutData.optionsRowHeight;
-        layout.setText(font, "Back");
-        font.draw(batch, layout, layoutData.optionsX + layoutData.optionsPadding, y);
+        label("Back").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
         drawOptionButton(layoutData.backPrevX, layoutData.backPrevY, layoutData.backPrevW, layoutData.backPrevH, "<", false);
         drawOptionButton(layoutData.backNextX, layoutData.backNextY, layoutData.backNextW, layoutData.backNextH, ">", false);
-        String backLabel = formatBackName(ui.backName);
-        layout.setText(font, backLabel);
+        if (!ui.backName.equals(backLabelName)) {
+            backLabelName = ui.backName;
+            backLabel = formatBackName(backLabelName);
+        }
+        backText.setText(backLabel);
         float labelX = layoutData.backPrevX + layoutData.backPrevW + layoutData.optionsPadding * 0.5f;
-        float labelY = layoutData.backPrevY + (layoutData.backPrevH + layout.height) * 0.5f;
-        font.draw(batch, layout, labelX, labelY);
+        float labelY = layoutData.backPrevY + (layoutData.backPrevH + backText.getHeight()) * 0.5f;
+        backText.draw(batch, labelX, labelY);
+
+        y -= layoutData.optionsRowHeight;
+        label("Daily").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
+        drawOptionButton(layoutData.dailyX, layoutData.dailyY, layoutData.dailyW, layoutData.dailyH, "Play",
+            ui.dailyChallengeDay >= 0);
+        dailyBestText.setText(ui.dailyBestLabel);
+        labelX = layoutData.dailyX + layoutData.dailyW + layoutData.optionsPadding * 0.5f;
+        labelY = layoutData.dailyY + (layoutData.dailyH + dailyBestText.getHeight()) * 0.5f;
+        dailyBestText.draw(batch, labelX, labelY);
+
+        y -= layoutData.optionsRowHeight;
+        label("Winnable?").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
+        drawOptionButton(layoutData.winnableOnX, layoutData.winnableOnY, layoutData.winnableOnW,
+            layoutData.winnableOnH, "On", ui.showWinnable);
+        drawOptionButton(layoutData.winnableOffX, layoutData.winnableOffY, layoutData.winnableOffW,
+            layoutData.winnableOffH, "Off", !ui.showWinnable);
+
+        y -= layoutData.optionsRowHeight;
+        label("Auto-play").draw(batch, layoutData.optionsX + layoutData.optionsPadding, y);
+        drawOptionButton(layoutData.autoPlayOnX, layoutData.autoPlayOnY, layoutData.autoPlayOnW,
+            layoutData.autoPlayOnH, "On", ui.autoPlaySafe);
+        drawOptionButton(layoutData.autoPlayOffX, layoutData.autoPlayOffY, layoutData.autoPlayOffW,
+            layoutData.autoPlayOffH, "Off", !ui.autoPlaySafe);
     }
 
     private void drawOptionButton(float x, float y, float w, float h, String text, boolean selected) {
@@ -346,10 +446,37 @@ public class GameRenderer {
         batch.draw(assets.getWhiteTex(), x, y, w, h);
         batch.setColor(Color.WHITE);
         drawOutline(x, y, w, h);
-        layout.setText(font, text);
-        float textX = x + (w - layout.width) * 0.5f;
-        float textY = y + (h + layout.height) * 0.5f;
-        font.draw(batch, layout, textX, textY);
+        drawCentered(label(text), x, y, w, h);
+    }
+
+    private void drawCentered(TextLabel label, float x, float y, float w, float h) {
+        label.draw(batch, x + (w - label.getWidth()) * 0.5f, y + (h + label.getHeight()) * 0.5f);
+    }
+
+    /** Returns the label for a fixed string, laid out for the current font scale. */
+    private TextLabel label(String text) {
+        TextLabel label = labels.get(text);
+        if (label == null) {
+            label = new TextLabel(font);
+            labels.put(text, label);
+        }
+        return label.setText(text);
+    }
+
+    /**
+     * Converts a world rectangle into {@code out} in the screen coordinates of whatever is being drawn to. Returns
+     * false until {@link #resize} has given the screen area.
+     */
+    private boolean toScissor(float x, float y, float width, float height, Rectangle out) {
+        if (screenWidth <= 0 || screenHeight <= 0 || layoutData.worldWidth <= 0f || layoutData.worldHeight <= 0f) {
+            return false;
+        }
+        float scaleX = screenWidth / layoutData.worldWidth;
+        float scaleY = screenHeight / layoutData.worldHeight;
+        float originX = drawingBoardCache ? 0f : screenX;
+        float originY = drawingBoardCache ? 0f : screenY;
+        out.set(originX + x * scaleX, originY + y * scaleY, width * scaleX, height * scaleY);
+        return true;
     }
 
     private String formatBackName(String name) {
@@ -6,6 +6,7 @@ import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.natelaclaire.solitaire.game.Card;
 import com.natelaclaire.solitaire.game.GameEngine;
 import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
 import com.natelaclaire.solitaire.game.Pile;
 import com.natelaclaire.solitaire.game.PileType;
 
@@ -20,6 +21,10 @@ public class InputController {
 
     public interface Callbacks {
         void onStateChanged();
+
+        void onDailyChallenge();
+
+        void onWin();
     }
 
     public InputController(FitViewport viewport, GameLayout layout, UiState ui, GameEngine engine, Assets assets,
@@ -58,6 +63,7 @@ public class InputController {
         if (hitRect(tmp.x, tmp.y, layout.newGameX, layout.newGameY, layout.newGameWidth, layout.newGameHeight)) {
             engine.newGame();
             ui.clearSelection();
+            ui.dailyChallengeDay = -1;
             callbacks.onStateChanged();
             return true;
         }
@@ -173,8 +179,7 @@ public class InputController {
         if (ui.dragging) {
             GameState state = engine.getState();
             Pile destination = findPileAt(state, tmp.x, tmp.y);
-            if (destination != null && engine.tryMove(ui.selectedPile, ui.selectedIndex, destination)) {
-                engine.revealTopAfterMove(ui.selectedPile);
+            if (destination != null && moveSelectionTo(state, destination)) {
                 ui.clearSelection();
             }
             ui.dragging = false;
@@ -195,8 +200,7 @@ public class InputController {
         }
 
         if (!ui.justSelected && destination != ui.selectedPile) {
-            if (engine.tryMove(ui.selectedPile, ui.selectedIndex, destination)) {
-                engine.revealTopAfterMove(ui.selectedPile);
+            if (moveSelectionTo(state, destination)) {
                 ui.clearSelection();
                 return true;
             }
@@ -218,7 +222,33 @@ public class InputController {
             return;
         }
         ui.clearSelection();
-        engine.drawFromStock();
+        if (engine.applyMove(Move.draw())) {
+            afterMove();
+        }
+    }
+
+    private boolean moveSelectionTo(GameState state, Pile destination) {
+        int from = state.pileId(ui.selectedPile);
+        int to = state.pileId(destination);
+        if (from < 0 || to < 0) {
+            return false;
+        }
+        if (!engine.applyMove(Move.transfer(from, ui.selectedIndex, to))) {
+            return false;
+        }
+        afterMove();
+        return true;
+    }
+
+    /** Runs safe auto-play if enabled and finishes the game once nothing is left hidden. */
+    private void afterMove() {
+        if (ui.autoPlaySafe) {
+            engine.autoPlay(true);
+        }
+        engine.autoComplete();
+        if (engine.isWin()) {
+            callbacks.onWin();
+        }
     }
 
     private boolean handleSelect(Pile pile, float x, float y) {
@@ -241,7 +271,9 @@ public class InputController {
             }
             Card card = pile.cards.get(index);
             if (!card.faceUp) {
-                engine.flipTopIfNeeded(pile, index);
+                if (index == pile.cards.size - 1 && engine.applyMove(Move.flip(engine.getState().pileId(pile)))) {
+                    afterMove();
+                }
                 ui.clearSelection();
                 return true;
             }
@@ -331,12 +363,17 @@ public class InputController {
     }
 
     private boolean handleOptionsClick(float x, float y) {
+        // A daily game is checked by replaying it at one draw count, so the count stays fixed until it ends.
         if (hitRect(x, y, layout.draw1X, layout.draw1Y, layout.draw1W, layout.draw1H)) {
-            engine.setDrawCount(1);
+            if (ui.dailyChallengeDay < 0) {
+                engine.setDrawCount(1);
+            }
             return true;
         }
         if (hitRect(x, y, layout.draw3X, layout.draw3Y, layout.draw3W, layout.draw3H)) {
-            engine.setDrawCount(3);
+            if (ui.dailyChallengeDay < 0) {
+                engine.setDrawCount(3);
+            }
             return true;
         }
         if (hitRect(x, y, layout.frontClassicX, layout.frontClassicY, layout.frontClassicW, layout.frontClassicH)) {
@@ -353,6 +390,27 @@ public class InputController {
             }
             return true;
         }
+        if (hitRect(x, y, layout.winnableOnX, layout.winnableOnY, layout.winnableOnW, layout.winnableOnH)) {
+            ui.showWinnable = true;
+            return true;
+        }
+        if (hitRect(x, y, layout.winnableOffX, layout.winnableOffY, layout.winnableOffW, layout.winnableOffH)) {
+            ui.showWinnable = false;
+            return true;
+        }
+        if (hitRect(x, y, layout.autoPlayOnX, layout.autoPlayOnY, layout.autoPlayOnW, layout.autoPlayOnH)) {
+            ui.autoPlaySafe = true;
+            return true;
+        }
+        if (hitRect(x, y, layout.autoPlayOffX, layout.autoPlayOffY, layout.autoPlayOffW, layout.autoPlayOffH)) {
+            ui.autoPlaySafe = false;
+            return true;
+        }
+        if (hitRect(x, y, layout.dailyX, layout.dailyY, layout.dailyW, layout.dailyH)) {
+            ui.optionsVisible = false;
+            callbacks.onDailyChallenge();
+            return true;
+        }
         if (hitRect(x, y, layout.backPrevX, layout.backPrevY, layout.backPrevW, layout.backPrevH)) {
             int index = findBackIndex(ui.backName);
             index = (index - 1 + SolitaireGameOptions.BACK_CHOICES.length) % SolitaireGameOptions.BACK_CHOICES.length;
@@ -0,0 +1,56 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+
+/**
+ * One line of white text, laid out into a {@link BitmapFontCache} once and then drawn from the cached vertices.
+ * The layout is redone only when the text or the font scale changes; moving the label just shifts its vertices.
+ */
+public class TextLabel {
+    private final BitmapFont font;
+    private final BitmapFontCache cache;
+    private String text;
+    private float scale;
+    private float width;
+    private float height;
+    /** Number of times the text has been laid out. */
+    int layouts;
+
+    public TextLabel(BitmapFont font) {
+        this.font = font;
+        this.cache = new BitmapFontCache(font, font.usesIntegerPositions());
+    }
+
+    /** Sets the text, laying it out again only if it or the font scale changed since the last call. */
+    public TextLabel setText(String text) {
+        float fontScale = font.getData().scaleX;
+        if (fontScale == scale && (text == this.text || text.equals(this.text))) {
+            return this;
+        }
+        this.text = text;
+        scale = fontScale;
+        layouts++;
+        cache.setPosition(0f, 0f);
+        GlyphLayout layout = cache.setText(text, 0f, 0f);
+        width = layout.width;
+        height = layout.height;
+        return this;
+    }
+
+    public float getWidth() {
+        return width;
+    }
+
+    public float getHeight() {
+        return height;
+    }
+
+    /** Draws the text with its top-left at {@code x}, {@code y}, as {@link BitmapFont#draw} would. */
+    public void draw(Batch batch, float x, float y) {
+        cache.setPosition(x, y);
+        cache.draw(batch);
+    }
+}
@@ -0,0 +1,88 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.utils.ScissorStack;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A scrolling column of text lines that costs the same per frame however long the text is. The visible range is
+ * worked out from the scroll offset and line height rather than by walking the lines, only that range is drawn,
+ * and a scissor rectangle trims lines cut off at the edges. Visible lines are drawn from {@link TextLabel}s kept in a
+ * ring indexed by line number, so scrolling lays out only the lines that come into view.
+ */
+public class TextPanel {
+    /** Distance between baselines, as a multiple of the font's line height. */
+    public static final float LINE_SPACING = 1.05f;
+
+    private final BitmapFont font;
+    private final Array<TextLabel> slots = new Array<>();
+    private Array<String> lines;
+
+    public TextPanel(BitmapFont font) {
+        this.font = font;
+    }
+
+    public void setLines(Array<String> lines) {
+        this.lines = lines;
+    }
+
+    /**
+     * Draws the lines between {@code top} and {@code bottom}, with line 0 at {@code top - scroll}.
+     *
+     * @param scissor the same area in screen coordinates, as {@link ScissorStack#pushScissors} takes them, or null
+     *                to skip clipping and draw only lines that fit entirely
+     */
+    public void draw(Batch batch, float x, float top, float bottom, float scroll, Rectangle scissor) {
+        if (lines == null || lines.size == 0) {
+            return;
+        }
+        float lineHeight = font.getLineHeight();
+        float step = lineHeight * LINE_SPACING;
+        float firstY = top - scroll;
+        int first;
+        int last;
+        if (scissor != null) {
+            // Include lines that are only partly inside, and none that are wholly outside; the scissor trims the rest.
+            first = (int) Math.floor((firstY - top - lineHeight) / step) + 1;
+            last = (int) Math.ceil((firstY - bottom) / step) - 1;
+        } else {
+            first = (int) Math.ceil((firstY - top) / step);
+            last = (int) Math.floor((firstY - lineHeight - bottom) / step);
+        }
+        first = Math.max(0, first);
+        last = Math.min(lines.size - 1, last);
+        if (first > last) {
+            return;
+        }
+
+        // At most this many lines overlap the panel at once, so no two drawn lines share a slot.
+        int needed = (int) Math.ceil((top - bottom) / step) + 2;
+        while (slots.size < needed) {
+            slots.add(new TextLabel(font));
+        }
+        if (scissor != null) {
+            batch.flush();
+            if (!ScissorStack.pushScissors(scissor)) {
+                return;
+            }
+        }
+        for (int i = first; i <= last; i++) {
+            slots.get(i % slots.size).setText(lines.get(i)).draw(batch, x, firstY - i * step);
+        }
+        if (scissor != null) {
+            batch.flush();
+            ScissorStack.popScissors();
+        }
+    }
+
+    /** Total number of times the panel's labels have laid out their text. */
+    int layouts() {
+        int layouts = 0;
+        for (int i = 0; i < slots.size; i++) {
+            layouts += slots.get(i).layouts;
+        }
+        return layouts;
+    }
+}
@@ -0,0 +1,210 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Reference-counted textures and atlases keyed by internal path, loaded through an {@link AssetManager}. Images are
+ * decoded on the manager's background thread; {@link #update} then uploads them on the render thread a frame at a
+ * time, so loading never stalls a frame for longer than its budget.
+ *
+ * <p>Released entries are not unloaded straight away: they stay resident, so going back to a recently used card
+ * back or front set costs nothing, until the estimated GPU memory of everything loaded goes over the budget. Then
+ * idle entries are unloaded, least recently used first. Entries still referenced are never evicted, even when they
+ * alone exceed the budget.
+ */
+public class TextureCache implements Disposable {
+    public static final long DEFAULT_BUDGET_BYTES = 96L * 1024 * 1024;
+
+    private static final class Entry {
+        /** Null until loaded. */
+        Object resource;
+        long bytes;
+        int references;
+        long lastUsed;
+    }
+
+    private final AssetManager manager;
+    private final long budgetBytes;
+    private final ObjectMap<String, Entry> entries = new ObjectMap<>();
+    private final Array<String> loading = new Array<>();
+    private final TextureLoader.TextureParameter textureParameter = new TextureLoader.TextureParameter();
+    private long residentBytes;
+    private long clock;
+
+    public TextureCache(AssetManager manager) {
+        this(manager, DEFAULT_BUDGET_BYTES);
+    }
+
+    public TextureCache(AssetManager manager, long budgetBytes) {
+        this.manager = manager;
+        this.budgetBytes = budgetBytes;
+        textureParameter.minFilter = Texture.TextureFilter.Linear;
+        textureParameter.magFilter = Texture.TextureFilter.Linear;
+    }
+
+    /** Takes a reference to {@code path}, queueing it for loading if needed. Pair with {@link #release}. */
+    public void acquire(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(path, entry);
+            loading.add(path);
+            request(path);
+        }
+        entry.references++;
+        entry.lastUsed = ++clock;
+    }
+
+    /** Drops one reference to {@code path}; the entry stays cached while it fits in the budget. */
+    public void release(String path) {
+        Entry entry = entries.get(path);
+        if (entry == null || entry.references == 0) {
+            throw new IllegalStateException("Not acquired: " + path);
+        }
+        entry.references--;
+        evict();
+    }
+
+    /**
+     * Loads queued entries for up to {@code millis} milliseconds. Returns true once nothing is left to load.
+     */
+    public boolean update(int millis) {
+        if (loading.size == 0) {
+            return true;
+        }
+        boolean done = step(millis);
+        collect();
+        return done && loading.size == 0;
+    }
+
+    /** Blocks until every queued entry has loaded. */
+    public void finishLoading() {
+        if (loading.size > 0) {
+            finish();
+            collect();
+        }
+    }
+
+    public boolean isLoaded(String path) {
+        Entry entry = entries.get(path);
+        return entry != null && entry.resource != null;
+    }
+
+    /** Returns the loaded texture at {@code path}, or null while it is still loading. */
+    public Texture getTexture(String path) {
+        return (Texture) get(path);
+    }
+
+    /** Returns the loaded atlas at {@code path}, or null while it is still loading. */
+    public TextureAtlas getAtlas(String path) {
+        return (TextureAtlas) get(path);
+    }
+
+    public boolean isResident(String path) {
+        return entries.containsKey(path);
+    }
+
+    /** Estimated GPU memory of every loaded entry, in bytes. */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    @Override
+    public void dispose() {
+        for (ObjectMap.Entry<String, Entry> entry : entries.entries()) {
+            unload(entry.key);
+        }
+        entries.clear();
+        loading.clear();
+        residentBytes = 0;
+    }
+
+    Object get(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? null : entry.resource;
+    }
+
+    void request(String path) {
+        if (path.endsWith(".atlas")) {
+            manager.load(path, TextureAtlas.class);
+        } else {
+            manager.load(path, Texture.class, textureParameter);
+        }
+    }
+
+    boolean step(int millis) {
+        return manager.update(millis);
+    }
+
+    void finish() {
+        manager.finishLoading();
+    }
+
+    /** Returns the resource at {@code path} if the manager has finished loading it, else null. */
+    Object poll(String path) {
+        return manager.isLoaded(path) ? manager.get(path) : null;
+    }
+
+    void unload(String path) {
+        manager.unload(path);
+    }
+
+    /** Estimates the GPU memory held by {@code resource}, assuming four bytes per texel and no mipmaps. */
+    long sizeOf(Object resource) {
+        if (resource instanceof TextureAtlas) {
+            long bytes = 0;
+            for (Texture texture : ((TextureAtlas) resource).getTextures()) {
+                bytes += sizeOf(texture);
+            }
+            return bytes;
+        }
+        Texture texture = (Texture) resource;
+        return 4L * texture.getWidth() * texture.getHeight();
+    }
+
+    private void collect() {
+        for (int i = loading.size - 1; i >= 0; i--) {
+            String path = loading.get(i);
+            Object resource = poll(path);
+            if (resource != null) {
+                Entry entry = entries.get(path);
+                entry.resource = resource;
+                entry.bytes = sizeOf(resource);
+                residentBytes += entry.bytes;
+                loading.removeIndex(i);
+            }
+        }
+        evict();
+    }
+
+    private void evict() {
+        while (residentBytes > budgetBytes) {
+            String oldestPath = null;
+            Entry oldest = null;
+            for (ObjectMap.Entry<String, Entry> candidate : entries.entries()) {
+                Entry entry = candidate.value;
+                if (entry.references == 0 && entry.resource != null
+                    && (oldest == null || entry.lastUsed < oldest.lastUsed)) {
+                    oldestPath = candidate.key;
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            entries.remove(oldestPath);
+            residentBytes -= oldest.bytes;
+            unload(oldestPath);
+        }
+    }
+}
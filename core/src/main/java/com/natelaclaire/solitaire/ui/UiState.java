@@ -30,6 +30,17 @@ public class UiState {
 
     public boolean optionsVisible;
 
+    /** Day of the daily challenge being played, or -1 for a normal game. */
+    public int dailyChallengeDay = -1;
+    public boolean dailySubmitted;
+    public String dailyBestLabel = "";
+
+    public boolean showWinnable;
+    public String winnableLabel = "";
+
+    /** Send cards to the foundations after each move when nothing could still need them. */
+    public boolean autoPlaySafe;
+
     public String frontPrefix = "card";
     public String backName = "purple_back_dark_inner.png";
 
@@ -50,6 +61,8 @@ public class UiState {
             + "Credits:\n"
             + "Card designs from https://ci.itch.io/card-games-graphics-pack";
 
+    private final WordWrapper rulesWrapper = new WordWrapper(RULES_TEXT);
+
     public void clearSelection() {
         selectedPile = null;
         selectedIndex = -1;
@@ -62,35 +75,11 @@ public class UiState {
         if (font == null || layout == null) {
             return;
         }
-        rulesLines = new Array<>();
         float padding = layout.rulesWidth * 0.05f;
         float maxWidth = layout.rulesWidth - padding * 2f;
-        String[] paragraphs = RULES_TEXT.split("\\n");
-        for (String paragraph : paragraphs) {
-            if (paragraph.trim().isEmpty()) {
-                rulesLines.add("");
-                continue;
-            }
-            String[] words = paragraph.split("\\s+");
-            StringBuilder line = new StringBuilder();
-            for (String word : words) {
-                String test = line.length() == 0 ? word : line + " " + word;
-                glyphLayout.setText(font, test);
-                if (glyphLayout.width > maxWidth && line.length() > 0) {
-                    rulesLines.add(line.toString());
-                    line.setLength(0);
-                    line.append(word);
-                } else {
-                    line.setLength(0);
-                    line.append(test);
-                }
-            }
-            if (line.length() > 0) {
-                rulesLines.add(line.toString());
-            }
-        }
+        rulesLines = rulesWrapper.wrap(font, glyphLayout, maxWidth);
 
-        float lineHeight = font.getLineHeight() * 1.05f;
+        float lineHeight = font.getLineHeight() * TextPanel.LINE_SPACING;
         float contentHeight = rulesLines.size * lineHeight;
         float contentTop = layout.rulesY + layout.rulesHeight - padding - font.getLineHeight();
         float contentBottom = layout.rulesY + padding;
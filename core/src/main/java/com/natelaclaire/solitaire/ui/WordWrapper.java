@@ -0,0 +1,113 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Greedy word wrapping for one fixed text. The text is split into words once, and each word is measured once, the
+ * first time it is wrapped: glyph advances scale linearly with the font scale, so those widths serve every later
+ * scale too. Wrapping is then a single pass that adds up widths, and the last few results are kept per
+ * (width, font scale), so laying out again at a size seen before returns the same lines without any work.
+ *
+ * <p>Lines break only at whitespace; runs of whitespace collapse to one space, and every {@code '\n'} starts a new
+ * line, so a blank line in the text stays a blank line. A word wider than the width gets a line of its own.
+ */
+public class WordWrapper {
+    private static final int CACHED_LAYOUTS = 4;
+
+    private final Array<String> words = new Array<>();
+    /** Index into {@link #words} where each paragraph starts, plus one entry for the end. */
+    private final IntArray paragraphStarts = new IntArray();
+    private float[] wordWidths;
+    private float spaceWidth;
+    private float measuredScale;
+
+    private final float[] cachedWidths = new float[CACHED_LAYOUTS];
+    private final float[] cachedScales = new float[CACHED_LAYOUTS];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Array<String>[] cachedLines = new Array[CACHED_LAYOUTS];
+    private int nextCacheSlot;
+    private final StringBuilder line = new StringBuilder();
+
+    public WordWrapper(String text) {
+        int start = -1;
+        paragraphStarts.add(0);
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '\n';
+            boolean space = c == ' ' || c == '\t' || c == '\r' || c == '\n';
+            if (!space && start < 0) {
+                start = i;
+            } else if (space && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+            if (c == '\n' && i < text.length()) {
+                paragraphStarts.add(words.size);
+            }
+        }
+        paragraphStarts.add(words.size);
+    }
+
+    /**
+     * Returns the text wrapped to {@code maxWidth} at the font's current scale. The same array is returned for as
+     * long as that layout stays cached, so callers can tell a new layout by reference; do not modify it.
+     */
+    public Array<String> wrap(BitmapFont font, GlyphLayout glyphLayout, float maxWidth) {
+        if (wordWidths == null) {
+            float[] widths = new float[words.size];
+            for (int i = 0; i < words.size; i++) {
+                glyphLayout.setText(font, words.get(i));
+                widths[i] = glyphLayout.width;
+            }
+            measured(widths, font.getData().spaceXadvance, font.getData().scaleX);
+        }
+        return wrap(maxWidth, font.getData().scaleX);
+    }
+
+    /** Records word and space widths measured at {@code scale}. */
+    void measured(float[] widths, float space, float scale) {
+        wordWidths = widths;
+        spaceWidth = space;
+        measuredScale = scale;
+    }
+
+    Array<String> wrap(float maxWidth, float scale) {
+        for (int i = 0; i < CACHED_LAYOUTS; i++) {
+            if (cachedLines[i] != null && cachedWidths[i] == maxWidth && cachedScales[i] == scale) {
+                return cachedLines[i];
+            }
+        }
+        float ratio = scale / measuredScale;
+        float space = spaceWidth * ratio;
+        Array<String> lines = new Array<>();
+        for (int p = 0; p + 1 < paragraphStarts.size; p++) {
+            int end = paragraphStarts.get(p + 1);
+            line.setLength(0);
+            float width = 0f;
+            for (int w = paragraphStarts.get(p); w < end; w++) {
+                float wordWidth = wordWidths[w] * ratio;
+                if (line.length() > 0 && width + space + wordWidth > maxWidth) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    width = 0f;
+                }
+                if (line.length() > 0) {
+                    line.append(' ');
+                    width += space;
+                }
+                line.append(words.get(w));
+                width += wordWidth;
+            }
+            lines.add(line.toString());
+        }
+
+        int slot = nextCacheSlot;
+        nextCacheSlot = (nextCacheSlot + 1) % CACHED_LAYOUTS;
+        cachedWidths[slot] = maxWidth;
+        cachedScales[slot] = scale;
+        cachedLines[slot] = lines;
+        return lines;
+    }
+}
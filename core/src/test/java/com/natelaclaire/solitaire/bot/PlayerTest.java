@@ -0,0 +1,57 @@
+package com.natelaclaire.solitaire.bot;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.Card;
+import com.natelaclaire.solitaire.game.GameRules;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.game.Suit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PlayerTest {
+    @Test
+    public void botsOnlyPlayLegalMovesAndRepeatForTheSameSeed() {
+        Player[] players = {new RandomPlayer(), new GreedyPlayer(), new HeuristicPlayer()};
+        PlayerRunner runner = new PlayerRunner();
+        for (Player player : players) {
+            for (long deal = 1; deal <= 5; deal++) {
+                runner.play(player, deal, 3, 42L);
+                IntArray first = new IntArray(runner.getEngine().getMoves());
+                int score = runner.getEngine().getScore();
+                runner.play(player, deal, 3, 42L);
+                assertEquals(first, runner.getEngine().getMoves());
+                assertEquals(score, runner.getEngine().getScore());
+                assertTrue(runner.getSteps() <= PlayerRunner.MAX_STEPS);
+            }
+        }
+    }
+
+    @Test
+    public void greedyPlayerPrefersFoundation() {
+        GameState state = GameState.newGame(3L);
+        Card ace = new Card(Suit.SPADES, 1);
+        ace.faceUp = true;
+        state.waste.cards.add(ace);
+        IntArray moves = new IntArray();
+        GameRules.collectMoves(state, moves);
+        int move = new GreedyPlayer().chooseMove(state, moves);
+        assertEquals(GameState.WASTE, Move.from(move));
+        assertEquals(GameState.FIRST_FOUNDATION, Move.to(move));
+    }
+
+    @Test
+    public void heuristicPlayerWinsSomeDeals() {
+        PlayerRunner runner = new PlayerRunner();
+        HeuristicPlayer player = new HeuristicPlayer();
+        int wins = 0;
+        for (long deal = 1; deal <= 40; deal++) {
+            if (runner.play(player, deal, 1, deal)) {
+                wins++;
+            }
+        }
+        assertTrue(wins > 0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchEngineTest {
+    @Test
+    public void randomPlayMatchesGameEngine() {
+        for (int drawCount = 1; drawCount <= 3; drawCount += 2) {
+            BatchEngine batch = new BatchEngine(4, drawCount);
+            for (int game = 0; game < batch.size(); game++) {
+                long seed = 1000L + game;
+                GameEngine engine = new GameEngine();
+                engine.setDrawCount(drawCount);
+                engine.newGame(seed);
+                batch.reset(game, seed);
+                RandomXS128 random = new RandomXS128(seed);
+                IntArray expected = new IntArray();
+                int[] actual = new int[256];
+                for (int step = 0; step < 400; step++) {
+                    assertSameState(engine.getState(), batch, game);
+                    expected.clear();
+                    GameRules.collectMoves(engine.getState(), expected);
+                    int count = batch.collectMoves(game, actual, 0);
+                    assertEquals(expected.size, count);
+                    for (int i = 0; i < count; i++) {
+                        assertEquals(expected.get(i), actual[i]);
+                    }
+                    if (count == 0) {
+                        break;
+                    }
+                    int move = actual[random.nextInt(count)];
+                    assertEquals(engine.applyMove(move), batch.apply(game, move));
+                }
+                assertFalse(batch.apply(game, Move.transfer(GameState.STOCK, 30, GameState.FIRST_TABLEAU)));
+            }
+        }
+    }
+
+    @Test
+    public void stepReportsRewardsAndIllegalActions() {
+        BatchEngine batch = new BatchEngine(2, 3);
+        GameState state = GameState.newGame(5L);
+        state.waste.cards.clear();
+        Card ace = new Card(Suit.HEARTS, 1);
+        ace.faceUp = true;
+        state.waste.cards.add(ace);
+        batch.load(0, state);
+        batch.reset(1, 5L);
+
+        int[] actions = {Move.transfer(GameState.WASTE, 0, GameState.FIRST_FOUNDATION), Move.flip(GameState.STOCK)};
+        int[] rewards = new int[2];
+        boolean[] done = new boolean[2];
+        assertEquals(1, batch.step(actions, rewards, done));
+        assertEquals(10, rewards[0]);
+        assertEquals(0, rewards[1]);
+        assertFalse(done[0]);
+        assertEquals(1, batch.pileSize(0, GameState.FIRST_FOUNDATION));
+        assertTrue((batch.card(0, GameState.FIRST_FOUNDATION, 0) & BatchEngine.FACE_UP) != 0);
+    }
+
+    @Test
+    public void bothEnginesRejectIllegalMoves() {
+        GameState state = GameState.newGame(3L);
+        state.stock.cards.clear();
+        state.waste.cards.clear();
+        for (Pile pile : state.tableau) {
+            pile.cards.clear();
+        }
+        state.stock.cards.add(new Card(Suit.CLUBS, 1));
+        state.tableau.get(0).cards.add(new Card(Suit.SPADES, 13));
+        addFaceUp(state.tableau.get(0), Suit.HEARTS, 12);
+        addFaceUp(state.waste, Suit.DIAMONDS, 13);
+        addFaceUp(state.waste, Suit.DIAMONDS, 5);
+        addFaceUp(state.foundations.get(0), Suit.HEARTS, 1);
+        addFaceUp(state.foundations.get(0), Suit.HEARTS, 2);
+
+        GameEngine engine = new GameEngine();
+        engine.setState(state);
+        BatchEngine batch = new BatchEngine(1, 3);
+        batch.load(0, state);
+        int emptyColumn = GameState.FIRST_TABLEAU + 1;
+        int[] illegal = {
+            // A face-down card from the stock.
+            Move.transfer(GameState.STOCK, 0, GameState.FIRST_FOUNDATION + 1),
+            // A buried face-down king with the run above it.
+            Move.transfer(GameState.FIRST_TABLEAU, 0, emptyColumn),
+            // Cards below the top of the waste or a foundation.
+            Move.transfer(GameState.WASTE, 0, emptyColumn),
+            Move.transfer(GameState.FIRST_FOUNDATION, 0, GameState.FIRST_FOUNDATION + 1),
+            // A pile onto itself, and piles that do not exist.
+            Move.transfer(GameState.WASTE, 1, GameState.WASTE),
+            Move.flip(40),
+            Move.transfer(GameState.WASTE, 1, 200),
+        };
+        for (int move : illegal) {
+            assertFalse(engine.applyMove(move));
+            assertFalse(batch.apply(0, move));
+            assertSameState(engine.getState(), batch, 0);
+        }
+        assertEquals(0, engine.getMoves().size);
+    }
+
+    private static void addFaceUp(Pile pile, Suit suit, int rank) {
+        Card card = new Card(suit, rank);
+        card.faceUp = true;
+        pile.cards.add(card);
+    }
+
+    private static void assertSameState(GameState state, BatchEngine batch, int game) {
+        assertEquals(state.score, batch.getScore(game));
+        assertEquals(state.winState, batch.isWon(game));
+        for (int id = 0; id < GameState.PILE_COUNT; id++) {
+            Pile pile = state.pile(id);
+            assertEquals(pile.cards.size, batch.pileSize(game, id));
+            for (int i = 0; i < pile.cards.size; i++) {
+                Card card = pile.cards.get(i);
+                assertEquals(card.index() | (card.faceUp ? BatchEngine.FACE_UP : 0), batch.card(game, id, i));
+            }
+        }
+    }
+}
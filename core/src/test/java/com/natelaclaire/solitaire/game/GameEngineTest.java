@@ -1,5 +1,6 @@
 package com.natelaclaire.solitaire.game;
 
+import com.badlogic.gdx.utils.Array;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -80,4 +81,200 @@ public class GameEngineTest {
         engine.undoLast();
         assertEquals(stockBefore, engine.getState().stock.cards.size);
     }
+
+    @Test
+    public void sameSeedDealsSameGame() {
+        GameState first = GameState.newGame(42L);
+        GameState second = GameState.newGame(42L);
+        for (int i = 0; i < first.tableau.size; i++) {
+            Card a = first.tableau.get(i).cards.peek();
+            Card b = second.tableau.get(i).cards.peek();
+            assertEquals(a.index(), b.index());
+        }
+        assertEquals(first.stock.cards.peek().index(), second.stock.cards.peek().index());
+    }
+
+    @Test
+    public void undoDropsMoveFromHistory() {
+        GameEngine engine = new GameEngine();
+        assertTrue(engine.applyMove(Move.draw()));
+        assertTrue(engine.applyMove(Move.draw()));
+        assertEquals(2, engine.getMoves().size);
+
+        engine.undoLast();
+        assertEquals(1, engine.getMoves().size);
+        assertFalse(engine.applyMove(Move.transfer(GameState.STOCK, 0, GameState.FIRST_FOUNDATION)));
+        assertEquals(1, engine.getMoves().size);
+    }
+
+    @Test
+    public void rejectsMovesTheTableWouldNotAllow() {
+        GameEngine engine = new GameEngine();
+        GameState state = engine.getState();
+        state.stock.cards.clear();
+        state.waste.cards.clear();
+        for (Pile pile : state.tableau) {
+            pile.cards.clear();
+        }
+        // A face-down ace on the stock cannot be taken straight to a foundation.
+        state.stock.cards.add(new Card(Suit.CLUBS, 1));
+        int stockTop = state.stock.cards.size - 1;
+        assertFalse(engine.applyMove(Move.transfer(GameState.STOCK, stockTop, GameState.FIRST_FOUNDATION)));
+        state.stock.cards.peek().faceUp = true;
+        assertFalse(engine.applyMove(Move.transfer(GameState.STOCK, stockTop, GameState.FIRST_FOUNDATION)));
+
+        // A buried face-down king cannot carry the run above it to an empty column.
+        state.tableau.get(0).cards.add(new Card(Suit.SPADES, 13));
+        addFaceUp(state.tableau.get(0), Suit.HEARTS, 12);
+        assertFalse(engine.applyMove(Move.transfer(GameState.FIRST_TABLEAU, 0, GameState.FIRST_TABLEAU + 1)));
+
+        // Only the top card of the waste may move.
+        addFaceUp(state.waste, Suit.DIAMONDS, 13);
+        addFaceUp(state.waste, Suit.DIAMONDS, 5);
+        assertFalse(engine.applyMove(Move.transfer(GameState.WASTE, 0, GameState.FIRST_TABLEAU + 1)));
+
+        // Moves naming piles that do not exist are refused rather than thrown on.
+        assertFalse(engine.applyMove(Move.flip(40)));
+        assertFalse(engine.applyMove(Move.transfer(GameState.WASTE, 1, 200)));
+        assertEquals(0, engine.getScore());
+        assertEquals(0, engine.getMoves().size);
+    }
+
+    @Test
+    public void autoCompleteFinishesOpenGame() {
+        GameEngine engine = new GameEngine();
+        GameState state = engine.getState();
+        state.stock.cards.clear();
+        state.waste.cards.clear();
+        for (Pile pile : state.tableau) {
+            pile.cards.clear();
+        }
+        Suit[][] columns = {{Suit.SPADES, Suit.HEARTS}, {Suit.HEARTS, Suit.SPADES}, {Suit.CLUBS, Suit.DIAMONDS},
+            {Suit.DIAMONDS, Suit.CLUBS}};
+        for (int c = 0; c < columns.length; c++) {
+            for (int rank = 13; rank >= 1; rank--) {
+                Card card = new Card(columns[c][(13 - rank) % 2], rank);
+                card.faceUp = true;
+                state.tableau.get(c).cards.add(card);
+            }
+        }
+        assertTrue(GameRules.canAutoComplete(state));
+        assertTrue(engine.autoComplete());
+        assertTrue(engine.isWin());
+        assertEquals(52, engine.getMoves().size);
+    }
+
+    @Test
+    public void safeAutoPlayHoldsBackCardsStillNeeded() {
+        GameEngine engine = new GameEngine();
+        GameState state = engine.getState();
+        state.stock.cards.clear();
+        state.waste.cards.clear();
+        for (Pile pile : state.tableau) {
+            pile.cards.clear();
+        }
+        addFaceUp(state.foundations.get(2), Suit.HEARTS, 1);
+        addFaceUp(state.foundations.get(2), Suit.HEARTS, 2);
+        addFaceUp(state.tableau.get(0), Suit.CLUBS, 2);
+        addFaceUp(state.tableau.get(0), Suit.CLUBS, 1);
+        addFaceUp(state.tableau.get(1), Suit.HEARTS, 3);
+        addFaceUp(state.waste, Suit.SPADES, 1);
+
+        assertEquals(3, engine.autoPlay(true));
+        assertEquals(1, state.tableau.get(1).cards.size);
+        assertEquals(2, state.foundations.get(0).cards.size);
+        assertEquals(1, state.foundations.get(3).cards.size);
+        assertEquals(1, engine.autoPlay(false));
+        assertEquals(3, state.foundations.get(2).cards.size);
+    }
+
+    private static void addFaceUp(Pile pile, Suit suit, int rank) {
+        Card card = new Card(suit, rank);
+        card.faceUp = true;
+        pile.cards.add(card);
+    }
+
+    @Test
+    public void publishesPooledEvents() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        engine.newGame(9L);
+        final Array<GameEvent.Type> types = new Array<>();
+        final Array<GameEvent> instances = new Array<>();
+        engine.addListener(new GameListener() {
+            @Override
+            public void onGameEvent(GameEngine source, GameEvent event) {
+                types.add(event.type);
+                if (!instances.contains(event, true)) {
+                    instances.add(event);
+                }
+            }
+        });
+        GameState state = engine.getState();
+        Card ace = new Card(Suit.CLUBS, 1);
+        ace.faceUp = true;
+        state.waste.cards.add(ace);
+
+        assertTrue(engine.applyMove(Move.transfer(GameState.WASTE, state.waste.cards.size - 1,
+            GameState.FIRST_FOUNDATION)));
+        assertTrue(engine.applyMove(Move.draw()));
+        assertTrue(engine.undoLast());
+        assertEquals(Array.with(GameEvent.Type.CARDS_MOVED, GameEvent.Type.SCORE_CHANGED, GameEvent.Type.MOVE_PLAYED,
+            GameEvent.Type.DRAW, GameEvent.Type.MOVE_PLAYED, GameEvent.Type.UNDO), types);
+        assertEquals(1, instances.size);
+    }
+
+    @Test
+    public void undoThenNewMoveStartsABranch() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        engine.newGame(21L);
+        assertTrue(engine.applyMove(Move.draw()));
+        assertTrue(engine.applyMove(Move.draw()));
+        int firstLine = engine.getCurrentNode();
+        String firstPosition = describe(engine.getState());
+
+        assertTrue(engine.undoLast());
+        assertTrue(engine.undoLast());
+        engine.setDrawCount(3);
+        assertTrue(engine.applyMove(Move.draw()));
+        int secondLine = engine.getCurrentNode();
+        String secondPosition = describe(engine.getState());
+        UndoTree tree = engine.getUndoTree();
+        assertEquals(4, tree.size());
+        assertEquals(UndoTree.ROOT, tree.commonAncestor(firstLine, secondLine));
+
+        engine.jumpTo(firstLine);
+        assertEquals(firstPosition, describe(engine.getState()));
+        assertEquals(2, engine.getMoves().size);
+        engine.jumpTo(secondLine);
+        assertEquals(secondPosition, describe(engine.getState()));
+        assertEquals(1, engine.getMoves().size);
+    }
+
+    @Test
+    public void replayingAnUndoneMoveReusesItsNode() {
+        GameEngine engine = new GameEngine();
+        assertTrue(engine.applyMove(Move.draw()));
+        int drawn = engine.getCurrentNode();
+        assertTrue(engine.applyMove(Move.draw()));
+        assertTrue(engine.undoLast());
+        assertTrue(engine.undoLast());
+        assertTrue(engine.applyMove(Move.draw()));
+        assertEquals(drawn, engine.getCurrentNode());
+        assertEquals(3, engine.getUndoTree().size());
+    }
+
+    static String describe(GameState state) {
+        StringBuilder out = new StringBuilder();
+        for (int id = 0; id < GameState.PILE_COUNT; id++) {
+            Pile pile = state.pile(id);
+            for (int i = 0; i < pile.cards.size; i++) {
+                Card card = pile.cards.get(i);
+                out.append(card.index()).append(card.faceUp ? '+' : '-');
+            }
+            out.append('|');
+        }
+        return out.append(state.score).toString();
+    }
 }
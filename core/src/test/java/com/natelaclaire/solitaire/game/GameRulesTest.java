@@ -39,4 +39,14 @@ public class GameRulesTest {
         assertFalse(GameRules.canPlaceOnTableau(tableau, new Card(Suit.DIAMONDS, 8)));
         assertFalse(GameRules.canPlaceOnTableau(tableau, new Card(Suit.SPADES, 7)));
     }
+
+    @Test
+    public void safeFoundationMoveWaitsForOppositeColours() {
+        int[] ranks = new int[4];
+        assertTrue(GameRules.isSafeFoundationMove(new Card(Suit.HEARTS, 2), ranks));
+        ranks[Suit.CLUBS.ordinal()] = 2;
+        assertFalse(GameRules.isSafeFoundationMove(new Card(Suit.HEARTS, 3), ranks));
+        ranks[Suit.SPADES.ordinal()] = 2;
+        assertTrue(GameRules.isSafeFoundationMove(new Card(Suit.HEARTS, 3), ranks));
+    }
 }
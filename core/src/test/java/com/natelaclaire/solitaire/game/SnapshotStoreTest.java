@@ -0,0 +1,67 @@
+package com.natelaclaire.solitaire.game;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotStoreTest {
+    @Test
+    public void cyclingTheStockReusesPositions() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        engine.newGame(3L);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(engine.applyMove(Move.draw()));
+        }
+        UndoTree tree = engine.getUndoTree();
+        assertEquals(5001, tree.size());
+        // One position per card drawn from the 24-card stock, plus the deal; the score stays at zero throughout.
+        assertEquals(25, tree.getStore().size());
+        // Full GameState copies took several megabytes here; now most of the cost is the tree's node arrays.
+        assertTrue(tree.getStore().retainedBytes() < 16 * 1024);
+        assertTrue(tree.retainedBytes() < 256 * 1024);
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(engine.undoLast());
+        }
+        assertEquals(GameEngineTest.describe(GameState.newGame(3L)), GameEngineTest.describe(engine.getState()));
+    }
+
+    @Test
+    public void everyNodeRebuildsItsPosition() {
+        GameEngine engine = new GameEngine();
+        engine.newGame(17L);
+        RandomXS128 random = new RandomXS128(4L);
+        IntArray legal = new IntArray();
+        Array<String> positions = new Array<>();
+        positions.add(GameEngineTest.describe(engine.getState()));
+        for (int i = 0; i < 400; i++) {
+            if (random.nextInt(4) == 0 && engine.getCurrentNode() != UndoTree.ROOT) {
+                engine.jumpTo(random.nextInt(engine.getUndoTree().size()));
+                continue;
+            }
+            legal.clear();
+            GameRules.collectMoves(engine.getState(), legal);
+            if (legal.size == 0) {
+                engine.jumpTo(UndoTree.ROOT);
+                continue;
+            }
+            int before = engine.getUndoTree().size();
+            assertTrue(engine.applyMove(legal.get(random.nextInt(legal.size))));
+            if (engine.getUndoTree().size() > before) {
+                positions.add(GameEngineTest.describe(engine.getState()));
+            }
+        }
+        UndoTree tree = engine.getUndoTree();
+        assertEquals(positions.size, tree.size());
+        for (int node = tree.size() - 1; node >= 0; node--) {
+            engine.jumpTo(node);
+            assertEquals(positions.get(node), GameEngineTest.describe(engine.getState()));
+            assertEquals(tree.getScore(node), engine.getScore());
+        }
+    }
+}
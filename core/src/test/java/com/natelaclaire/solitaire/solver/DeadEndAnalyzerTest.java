@@ -0,0 +1,55 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Suit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadEndAnalyzerTest {
+    @Test
+    public void detectsCardBuriedOverItsParents() {
+        assertTrue(new DeadEndAnalyzer().isDeadEnd(SolverTest.blockedState()));
+    }
+
+    @Test
+    public void detectsSameSuitCardsBlockingEachOther() {
+        GameState state = SolverTest.emptyState();
+        // The six of hearts covers the five of spades and the six of spades covers the five of hearts, so neither
+        // six can reach the foundation before the other has moved.
+        SolverTest.addCard(state.tableau.get(0), Suit.CLUBS, 7, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.SPADES, 5, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.HEARTS, 6, true);
+        SolverTest.addCard(state.tableau.get(1), Suit.SPADES, 7, false);
+        SolverTest.addCard(state.tableau.get(1), Suit.HEARTS, 5, false);
+        SolverTest.addCard(state.tableau.get(1), Suit.SPADES, 6, true);
+        // The six of spades can still go onto a red seven, which frees the five of spades.
+        assertFalse(new DeadEndAnalyzer().isDeadEnd(state));
+
+        // With both sevens of each colour buried under their sixes as well, neither six can ever move.
+        state.tableau.get(0).cards.clear();
+        state.tableau.get(1).cards.clear();
+        SolverTest.addCard(state.tableau.get(0), Suit.CLUBS, 7, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.SPADES, 7, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.SPADES, 5, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.HEARTS, 6, true);
+        SolverTest.addCard(state.tableau.get(1), Suit.HEARTS, 7, false);
+        SolverTest.addCard(state.tableau.get(1), Suit.DIAMONDS, 7, false);
+        SolverTest.addCard(state.tableau.get(1), Suit.HEARTS, 5, false);
+        SolverTest.addCard(state.tableau.get(1), Suit.SPADES, 6, true);
+        assertTrue(new DeadEndAnalyzer().isDeadEnd(state));
+    }
+
+    @Test
+    public void acceptsFreshDealsThatCanStillMove() {
+        DeadEndAnalyzer analyzer = new DeadEndAnalyzer();
+        Solver solver = new Solver();
+        for (long seed = 1; seed <= 20; seed++) {
+            GameState deal = GameState.newGame(seed);
+            if (solver.solve(deal, 1).status == SolveResult.Status.SOLVED) {
+                assertFalse(analyzer.isDeadEnd(deal));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.tools.SolutionDatabaseWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SolutionDatabaseTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void packedMovesRoundTrip() {
+        int[] moves = {Move.draw(), Move.flip(12), Move.transfer(1, 23, 5), Move.transfer(12, 18, 6)};
+        for (int move : moves) {
+            assertEquals(move, SolutionDatabase.unpackMove(SolutionDatabase.packMove(move)));
+            assertTrue(SolutionDatabase.packMove(move) < 1 << 15);
+        }
+    }
+
+    @Test
+    public void looksUpSolutionsByChunk() throws IOException {
+        File file = folder.newFile("solutions.db");
+        new SolutionDatabaseWriter(100L, 120L, 1, 20000, 8).write(file);
+        final int[] chunkReads = {0};
+        SolutionDatabase database = new SolutionDatabase(new FileSolutionSource(new FileHandle(file)) {
+            @Override
+            public void loadChunk(int chunk, long offset, int length, Callback callback) {
+                chunkReads[0]++;
+                super.loadChunk(chunk, offset, length, callback);
+            }
+        });
+
+        Solver solver = new Solver(20000);
+        int found = 0;
+        for (long seed = 100L; seed < 120L; seed++) {
+            SolveResult expected = solver.solve(GameState.newGame(seed), 1);
+            IntArray moves = lookup(database, seed);
+            if (expected.status != SolveResult.Status.SOLVED) {
+                assertNull(moves);
+                continue;
+            }
+            assertNotNull(moves);
+            assertEquals(expected.moves, moves);
+            GameEngine engine = new GameEngine();
+            engine.setDrawCount(1);
+            engine.newGame(seed);
+            for (int i = 0; i < moves.size; i++) {
+                assertTrue(engine.applyMove(moves.get(i)));
+            }
+            assertTrue(engine.isWin());
+            found++;
+        }
+        assertTrue(found > 0);
+        assertEquals(3, chunkReads[0]);
+        assertEquals(1, database.getDrawCount());
+        assertNull(lookup(database, 99L));
+        assertNull(lookup(database, 120L));
+    }
+
+    @Test
+    public void splitFilesMatchTheDatabase() throws IOException {
+        File file = folder.newFile("solutions.db");
+        new SolutionDatabaseWriter(7L, 17L, 3, 20000, 4).write(file);
+        File dir = folder.newFolder("html");
+        SolutionDatabaseWriter.split(file, dir);
+        assertTrue(new File(dir, "index.txt").exists());
+        assertTrue(new File(dir, "chunk-2.txt").exists());
+        assertEquals(3, dir.list().length - 1);
+    }
+
+    private static IntArray lookup(SolutionDatabase database, long seed) {
+        final IntArray[] out = {null};
+        database.lookup(seed, new SolutionDatabase.Listener() {
+            @Override
+            public void solution(long found, IntArray moves) {
+                out[0] = moves;
+            }
+        });
+        return out[0];
+    }
+}
@@ -0,0 +1,40 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Suit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SolverBoardTest {
+    @Test
+    public void columnAndFoundationOrderShareAKey() {
+        GameState state = SolverTest.emptyState();
+        SolverTest.fillFoundation(state.foundations.get(0), Suit.CLUBS, 3);
+        SolverTest.fillFoundation(state.foundations.get(1), Suit.HEARTS, 2);
+        SolverTest.addCard(state.tableau.get(0), Suit.SPADES, 9, false);
+        SolverTest.addCard(state.tableau.get(0), Suit.DIAMONDS, 8, true);
+        SolverTest.addCard(state.tableau.get(2), Suit.CLUBS, 13, true);
+        SolverTest.addCard(state.tableau.get(3), Suit.HEARTS, 4, true);
+        SolverTest.addCard(state.stock, Suit.DIAMONDS, 1, false);
+        SolverTest.addCard(state.stock, Suit.SPADES, 1, false);
+        long hash = hash(state);
+
+        GameState permuted = state.copy();
+        permuted.tableau.swap(0, 6);
+        permuted.tableau.swap(2, 3);
+        permuted.foundations.swap(0, 3);
+        assertEquals(hash, hash(permuted));
+
+        GameState moved = state.copy();
+        moved.waste.cards.add(moved.stock.cards.pop());
+        assertNotEquals(hash, hash(moved));
+    }
+
+    private static long hash(GameState state) {
+        SolverBoard board = new SolverBoard();
+        board.load(state, 1);
+        return board.hash();
+    }
+}
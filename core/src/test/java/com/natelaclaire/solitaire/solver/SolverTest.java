@@ -0,0 +1,196 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.natelaclaire.solitaire.game.Card;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Pile;
+import com.natelaclaire.solitaire.game.Suit;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SolverTest {
+    @Test
+    public void solvesNearlyFinishedGame() {
+        GameState state = emptyState();
+        fillFoundation(state.foundations.get(0), Suit.CLUBS, 11);
+        fillFoundation(state.foundations.get(1), Suit.DIAMONDS, 13);
+        fillFoundation(state.foundations.get(2), Suit.HEARTS, 13);
+        fillFoundation(state.foundations.get(3), Suit.SPADES, 13);
+        addCard(state.tableau.get(0), Suit.CLUBS, 13, false);
+        addCard(state.tableau.get(0), Suit.CLUBS, 12, true);
+
+        SolveResult result = new Solver().solve(state, 3);
+
+        assertEquals(SolveResult.Status.SOLVED, result.status);
+        assertWinsWhenReplayed(state, 3, result);
+    }
+
+    @Test
+    public void provesBlockedGameUnsolvable() {
+        SolveResult result = new Solver().solve(blockedState(), 1);
+
+        assertEquals(SolveResult.Status.UNSOLVABLE, result.status);
+        assertEquals(0, result.moves.size);
+    }
+
+    @Test
+    public void solutionForSeededDealReplaysToWin() {
+        int solved = 0;
+        Solver solver = new Solver();
+        for (long seed = 1; seed <= 10; seed++) {
+            GameState deal = GameState.newGame(seed);
+            SolveResult result = solver.solve(deal, 1);
+            if (result.status == SolveResult.Status.SOLVED) {
+                assertWinsWhenReplayed(deal, 1, result);
+                solved++;
+            }
+        }
+        assertTrue(solved > 0);
+    }
+
+    @Test
+    public void persistsProvenLostRootsToTheLostStore() {
+        RecordingStore store = new RecordingStore();
+        Solver solver = new Solver(20000);
+        solver.setLostStore(store);
+        GameState lostDeal = null;
+        SolveResult result = new SolveResult();
+        for (long seed = 1; lostDeal == null; seed++) {
+            GameState deal = GameState.newGame(seed);
+            if (solver.solve(deal, 3, result).status == SolveResult.Status.UNSOLVABLE && result.nodesExpanded > 0) {
+                lostDeal = deal;
+            }
+        }
+        assertEquals(1, store.hashes.size);
+        assertEquals(3, store.drawCounts.get(0));
+
+        // A fresh solver sharing the store proves the same deal lost without expanding anything.
+        Solver fresh = new Solver(20000);
+        fresh.setLostStore(store);
+        assertEquals(SolveResult.Status.UNSOLVABLE, fresh.solve(lostDeal, 3, result).status);
+        assertEquals(0, result.nodesExpanded);
+        // The key includes the draw count.
+        assertTrue(fresh.solve(lostDeal, 1, result).nodesExpanded > 0);
+    }
+
+    /** A {@link LostPositions} store kept in memory. */
+    @Test
+    public void resumedSearchMatchesASingleSolve() {
+        GameState deal = GameState.newGame(3);
+        SolveResult whole = new Solver(20000).solve(deal, 1);
+
+        Solver solver = new Solver(20000);
+        SolveResult sliced = new SolveResult();
+        solver.begin(deal, 1, false, sliced);
+        int slices = 0;
+        while (!solver.resume(100, sliced)) {
+            slices++;
+        }
+        assertTrue(slices > 0);
+        assertEquals(whole.status, sliced.status);
+        assertEquals(whole.nodesExpanded, sliced.nodesExpanded);
+        assertEquals(whole.moves, sliced.moves);
+    }
+
+    @Test
+    public void keptTableMakesAFailureInconclusive() {
+        GameState deal = GameState.newGame(3);
+        Solver solver = new Solver(20000);
+        SolveResult result = new SolveResult();
+        solver.begin(deal, 1, false, result);
+        solver.resume(20000, result);
+
+        // The root is already in the kept table, so the search fails at once without proving anything.
+        solver.begin(deal, 1, true, result);
+        assertTrue(solver.resume(20000, result));
+        assertEquals(SolveResult.Status.UNKNOWN, result.status);
+        assertEquals(0, result.nodesExpanded);
+        assertTrue(solver.isInconclusive());
+
+        solver.begin(deal, 1, false, result);
+        solver.resume(20000, result);
+        assertFalse(solver.isInconclusive());
+    }
+
+    private static class RecordingStore implements LostPositions {
+        final LongArray hashes = new LongArray();
+        final IntArray drawCounts = new IntArray();
+
+        @Override
+        public boolean isLost(long positionHash, int drawCount) {
+            for (int i = 0; i < hashes.size; i++) {
+                if (hashes.get(i) == positionHash && drawCounts.get(i) == drawCount) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void putLost(long positionHash, int drawCount) {
+            hashes.add(positionHash);
+            drawCounts.add(drawCount);
+        }
+    }
+
+    /** The three of clubs covers the two of clubs and both red fours, so it can never move. */
+    static GameState blockedState() {
+        GameState state = emptyState();
+        fillFoundation(state.foundations.get(0), Suit.CLUBS, 1);
+        fillFoundation(state.foundations.get(1), Suit.DIAMONDS, 3);
+        fillFoundation(state.foundations.get(2), Suit.HEARTS, 3);
+        fillFoundation(state.foundations.get(3), Suit.SPADES, 13);
+        addCard(state.tableau.get(0), Suit.DIAMONDS, 4, false);
+        addCard(state.tableau.get(0), Suit.HEARTS, 4, false);
+        addCard(state.tableau.get(0), Suit.CLUBS, 2, false);
+        addCard(state.tableau.get(0), Suit.CLUBS, 3, true);
+        for (int rank = 13; rank >= 5; rank--) {
+            addCard(state.tableau.get(1), Suit.DIAMONDS, rank, rank == 5);
+            addCard(state.tableau.get(2), Suit.HEARTS, rank, rank == 5);
+        }
+        for (int rank = 4; rank <= 13; rank++) {
+            addCard(state.stock, Suit.CLUBS, rank, false);
+        }
+        return state;
+    }
+
+    static GameState emptyState() {
+        GameState state = GameState.newGame(0L);
+        state.stock.cards.clear();
+        state.waste.cards.clear();
+        for (Pile pile : state.foundations) {
+            pile.cards.clear();
+        }
+        for (Pile pile : state.tableau) {
+            pile.cards.clear();
+        }
+        return state;
+    }
+
+    static void fillFoundation(Pile foundation, Suit suit, int upTo) {
+        for (int rank = 1; rank <= upTo; rank++) {
+            addCard(foundation, suit, rank, true);
+        }
+    }
+
+    static void addCard(Pile pile, Suit suit, int rank, boolean faceUp) {
+        Card card = new Card(suit, rank);
+        card.faceUp = faceUp;
+        pile.cards.add(card);
+    }
+
+    private static void assertWinsWhenReplayed(GameState state, int drawCount, SolveResult result) {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(drawCount);
+        engine.setState(state.copy());
+        for (int i = 0; i < result.moves.size; i++) {
+            assertTrue(engine.applyMove(result.moves.get(i)));
+        }
+        assertTrue(engine.isWin());
+    }
+}
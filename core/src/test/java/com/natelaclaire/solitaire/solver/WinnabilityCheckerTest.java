@@ -0,0 +1,96 @@
+package com.natelaclaire.solitaire.solver;
+
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Move;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WinnabilityCheckerTest {
+    @Test
+    public void followingKnownLineStaysWinnable() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        WinnabilityChecker checker = new WinnabilityChecker(Solver.DEFAULT_MAX_NODES);
+        long seed = 1;
+        for (; ; seed++) {
+            engine.newGame(seed);
+            if (settle(checker, engine) == WinnabilityChecker.Answer.WINNABLE) {
+                break;
+            }
+        }
+        SolveResult solution = new Solver().solve(GameState.newGame(seed), 1);
+        for (int i = 0; i < solution.moves.size; i++) {
+            assertTrue(engine.applyMove(solution.moves.get(i)));
+            assertEquals(WinnabilityChecker.Answer.WINNABLE, settle(checker, engine));
+        }
+        assertTrue(engine.isWin());
+    }
+
+    @Test
+    public void reportsBlockedPositionAsLost() {
+        GameEngine engine = new GameEngine();
+        engine.setState(SolverTest.blockedState());
+
+        WinnabilityChecker checker = new WinnabilityChecker();
+        assertEquals(WinnabilityChecker.Answer.NOT_WINNABLE, settle(checker, engine));
+        engine.applyMove(Move.draw());
+        assertEquals(WinnabilityChecker.Answer.NOT_WINNABLE, settle(checker, engine));
+    }
+
+    @Test
+    public void searchesOneSliceOfPositionsPerCall() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        engine.newGame(7);
+        WinnabilityChecker sliced = new WinnabilityChecker(WinnabilityChecker.DEFAULT_BUDGET, 10);
+        assertEquals(WinnabilityChecker.Answer.CHECKING, sliced.check(engine));
+        assertTrue(sliced.isSearching());
+
+        int calls = 1;
+        WinnabilityChecker.Answer answer;
+        do {
+            answer = sliced.check(engine);
+            calls++;
+        } while (sliced.isSearching());
+        assertTrue(calls > 2);
+        WinnabilityChecker whole = new WinnabilityChecker(WinnabilityChecker.DEFAULT_BUDGET,
+            WinnabilityChecker.DEFAULT_BUDGET);
+        assertEquals(whole.check(engine), answer);
+        assertFalse(whole.isSearching());
+    }
+
+    @Test
+    public void keptTableStillFindsWinsAfterLeavingTheLine() {
+        GameEngine engine = new GameEngine();
+        engine.setDrawCount(1);
+        WinnabilityChecker checker = new WinnabilityChecker(Solver.DEFAULT_MAX_NODES);
+        long seed = 1;
+        for (; ; seed++) {
+            engine.newGame(seed);
+            if (settle(checker, engine) == WinnabilityChecker.Answer.WINNABLE) {
+                break;
+            }
+        }
+        // Drawing when the known line does not leaves it, and the table still holds the first search's positions.
+        SolveResult solution = new Solver().solve(GameState.newGame(seed), 1);
+        int first = 0;
+        while (solution.moves.get(first) == Move.draw()) {
+            assertTrue(engine.applyMove(solution.moves.get(first++)));
+        }
+        assertTrue(engine.applyMove(Move.draw()));
+        WinnabilityChecker fresh = new WinnabilityChecker(Solver.DEFAULT_MAX_NODES);
+        assertEquals(settle(fresh, engine), settle(checker, engine));
+    }
+
+    private static WinnabilityChecker.Answer settle(WinnabilityChecker checker, GameEngine engine) {
+        WinnabilityChecker.Answer answer = checker.check(engine);
+        while (checker.isSearching()) {
+            answer = checker.check(engine);
+        }
+        return answer;
+    }
+}
@@ -0,0 +1,217 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.Card;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.GameRules;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Pile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JournalFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoresTheGameLeftOpen() throws IOException {
+        File dir = folder.getRoot();
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir, 8, Long.MAX_VALUE, 1000);
+        engine.addListener(journal);
+        engine.setDrawCount(3);
+        engine.newGame(77L);
+        play(engine, 40, 1L);
+        engine.setDrawCount(1);
+        play(engine, 40, 2L);
+        // The app is killed here: nothing is closed.
+
+        GameEngine restored = new GameEngine();
+        assertTrue(new JournalFile(dir).restore(restored));
+        assertSameGame(engine, restored);
+        assertFalse(journal.getSnapshotFile().exists());
+    }
+
+    @Test
+    public void compactsIntoSnapshots() {
+        File dir = folder.getRoot();
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir, 8, Long.MAX_VALUE, 16);
+        engine.addListener(journal);
+        engine.newGame(5L);
+        play(engine, 50, 3L);
+        engine.setDrawCount(engine.getDrawCount() == 1 ? 3 : 1);
+        play(engine, 50, 4L);
+        journal.close();
+
+        assertTrue(journal.getSnapshotFile().exists());
+        GameEngine restored = new GameEngine();
+        assertTrue(new JournalFile(dir).restore(restored));
+        assertSameGame(engine, restored);
+        while (engine.undoLast()) {
+            assertTrue(restored.undoLast());
+            assertSameGame(engine, restored);
+        }
+        assertFalse(restored.undoLast());
+    }
+
+    @Test
+    public void ignoresATornRecord() throws IOException {
+        File dir = folder.getRoot();
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir);
+        engine.addListener(journal);
+        engine.newGame(11L);
+        play(engine, 30, 5L);
+        journal.close();
+        long length = journal.getLogFile().length();
+        try (FileOutputStream out = new FileOutputStream(journal.getLogFile(), true)) {
+            out.write(new byte[] {2, 1, 0});
+        }
+
+        GameEngine restored = new GameEngine();
+        JournalFile reopened = new JournalFile(dir);
+        assertTrue(reopened.restore(restored));
+        assertSameGame(engine, restored);
+        assertEquals(length, reopened.getLogFile().length());
+
+        // Recording carries on after the point it was cut.
+        restored.addListener(reopened);
+        play(restored, 10, 6L);
+        reopened.close();
+        GameEngine again = new GameEngine();
+        assertTrue(new JournalFile(dir).restore(again));
+        assertSameGame(restored, again);
+    }
+
+    @Test
+    public void followsJumpsInTheUndoTree() {
+        File dir = folder.getRoot();
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir);
+        engine.addListener(journal);
+        engine.newGame(13L);
+        play(engine, 20, 7L);
+        int branch = engine.getCurrentNode();
+        for (int i = 0; i < 5; i++) {
+            engine.undoLast();
+        }
+        engine.setDrawCount(engine.getDrawCount() == 1 ? 3 : 1);
+        play(engine, 20, 8L);
+        engine.jumpTo(branch);
+
+        GameEngine restored = new GameEngine();
+        assertTrue(new JournalFile(dir).restore(restored));
+        assertSameGame(engine, restored);
+    }
+
+    @Test
+    public void recordsTheFirstDealOfAFreshInstall() {
+        File dir = folder.getRoot();
+        GameEngine engine = launch(dir);
+        play(engine, 30, 9L);
+        // The app is killed here: nothing is closed.
+
+        GameEngine restored = launch(dir);
+        assertSameGame(engine, restored);
+    }
+
+    @Test
+    public void ignoresMovesLoggedWithoutADeal() {
+        File dir = folder.getRoot();
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir);
+        // Listening only after the constructor dealt, so the log has moves but no new game record.
+        engine.addListener(journal);
+        play(engine, 10, 10L);
+        journal.close();
+
+        GameEngine restored = new GameEngine();
+        restored.newGame(12345L);
+        String deal = describe(restored.getState());
+        assertFalse(new JournalFile(dir).restore(restored));
+        assertEquals(0, restored.getMoves().size);
+        assertEquals(deal, describe(restored.getState()));
+    }
+
+    @Test
+    public void keepsThePlayerGoingWhenTheDiskFails() throws IOException {
+        // A file where the directory should be makes every write fail.
+        File dir = new File(folder.newFile("blocked"), "save");
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir);
+        engine.addListener(journal);
+        engine.newGame(5L);
+        play(engine, 20, 5L);
+        journal.flush();
+        journal.close();
+
+        assertNotNull(journal.getFailure());
+        assertTrue(engine.getMoves().size > 0);
+    }
+
+    @Test
+    public void reportsNothingToRestore() {
+        assertFalse(new JournalFile(new File(folder.getRoot(), "missing")).restore(new GameEngine()));
+    }
+
+    /** Starts the engine and journal in the order {@code SolitaireGame.create} does. */
+    private static GameEngine launch(File dir) {
+        GameEngine engine = new GameEngine();
+        JournalFile journal = new JournalFile(dir, 8, Long.MAX_VALUE, 1000);
+        boolean restored = journal.restore(engine);
+        engine.addListener(journal);
+        if (!restored) {
+            engine.newGame(engine.getState().seed);
+        }
+        return engine;
+    }
+
+    /** Plays random legal moves, undoing now and then. */
+    private static void play(GameEngine engine, int steps, long seed) {
+        RandomXS128 random = new RandomXS128(seed);
+        IntArray moves = new IntArray();
+        for (int i = 0; i < steps; i++) {
+            if (random.nextInt(5) == 0 && engine.undoLast()) {
+                continue;
+            }
+            moves.clear();
+            GameRules.collectMoves(engine.getState(), moves);
+            if (moves.size == 0) {
+                return;
+            }
+            assertTrue(engine.applyMove(moves.get(random.nextInt(moves.size))));
+        }
+    }
+
+    private static void assertSameGame(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getDrawCount(), actual.getDrawCount());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getMoves(), actual.getMoves());
+        assertEquals(describe(expected.getState()), describe(actual.getState()));
+    }
+
+    private static String describe(GameState state) {
+        StringBuilder out = new StringBuilder();
+        for (int id = 0; id < GameState.PILE_COUNT; id++) {
+            Pile pile = state.pile(id);
+            for (int i = 0; i < pile.cards.size; i++) {
+                Card card = pile.cards.get(i);
+                out.append(card.index()).append(card.faceUp ? '+' : '-');
+            }
+            out.append('|');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.natelaclaire.solitaire.game.DailyChallenge;
+import com.natelaclaire.solitaire.game.GameState;
+import com.natelaclaire.solitaire.game.Leaderboard;
+import com.natelaclaire.solitaire.game.Move;
+import com.natelaclaire.solitaire.solver.SolveResult;
+import com.natelaclaire.solitaire.solver.Solver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderboardFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void keepsTopScoresPerDayAndVerifiesReplays() throws IOException {
+        int day = findSolvableDay(20000);
+        int otherDay = findSolvableDay(day + 1);
+        long seed = DailyChallenge.seedFor(day);
+        IntArray moves = new Solver().solve(GameState.newGame(seed), 1).moves;
+        int score = DailyChallenge.replayScore(seed, 1, moves);
+        assertTrue(score >= 0);
+        long otherSeed = DailyChallenge.seedFor(otherDay);
+        IntArray otherMoves = new Solver().solve(GameState.newGame(otherSeed), 1).moves;
+        int otherScore = DailyChallenge.replayScore(otherSeed, 1, otherMoves);
+
+        LeaderboardFile leaderboard = new LeaderboardFile(folder.newFolder(), 2);
+        assertEquals(-1, leaderboard.bestScore(day));
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(day, seed, 1, score + 1, moves));
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(day, seed, 3, score, moves));
+        // A valid win filed under a day whose deal it is not.
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(otherDay, seed, 1, score, moves));
+        // Malformed or forged replays are refused, not thrown on.
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(day, seed, 2, score, moves));
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(day, seed, 1, 0, IntArray.with(Move.flip(40))));
+        IntArray forged = new IntArray(moves);
+        forged.insert(0, Move.transfer(GameState.STOCK, GameState.newGame(seed).stock.cards.size - 1,
+            GameState.FIRST_FOUNDATION));
+        assertEquals(Leaderboard.REJECTED, leaderboard.submit(day, seed, 1, score + 10, forged));
+        assertEquals(0, leaderboard.submit(day, seed, 1, score, moves));
+        assertEquals(1, leaderboard.submit(day, seed, 1, score, moves));
+        assertEquals(Leaderboard.NOT_RANKED, leaderboard.submit(day, seed, 1, score, moves));
+        assertEquals(0, leaderboard.submit(otherDay, otherSeed, 1, otherScore, otherMoves));
+
+        assertEquals(score, leaderboard.bestScore(day));
+        assertEquals(2, leaderboard.count(day));
+        assertEquals(1, leaderboard.count(otherDay));
+        assertTrue(leaderboard.verify(day, 1));
+        assertTrue(leaderboard.verify(otherDay, 0));
+        leaderboard.close();
+    }
+
+    /** Returns the first day from {@code from} on whose deal can be won at draw 1. */
+    private static int findSolvableDay(int from) {
+        Solver solver = new Solver();
+        for (int day = from; ; day++) {
+            if (solver.solve(GameState.newGame(DailyChallenge.seedFor(day)), 1).status == SolveResult.Status.SOLVED) {
+                return day;
+            }
+        }
+    }
+}
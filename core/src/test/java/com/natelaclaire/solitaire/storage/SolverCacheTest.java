@@ -0,0 +1,86 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.natelaclaire.solitaire.solver.SolveResult;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SolverCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readersSeeWriterEntriesAndTheyPersist() throws IOException {
+        File file = new File(folder.getRoot(), "solver.cache");
+        SolveResult result = new SolveResult();
+        result.status = SolveResult.Status.SOLVED;
+        result.nodesExpanded = 1234;
+        result.moves.addAll(1, 2, 3);
+
+        SolverCache.Entry entry = new SolverCache.Entry();
+        try (SolverCache writer = SolverCache.openWriter(file, 64);
+             SolverCache reader = SolverCache.openReader(file)) {
+            assertNull(reader.getDeal(42L, 3, entry));
+            writer.putDeal(42L, 3, result);
+            result.status = SolveResult.Status.UNSOLVABLE;
+            writer.putDeal(43L, 1, result);
+            writer.putLost(0xABCDEFL, 1);
+
+            assertNotNull(reader.getDeal(42L, 3, entry));
+            assertEquals(SolveResult.Status.SOLVED, entry.status);
+            assertEquals(1234, entry.nodesExpanded);
+            assertEquals(3, entry.solutionLength);
+            assertNull(reader.getDeal(42L, 1, entry));
+            assertNotNull(reader.getDeal(43L, 1, entry));
+            assertEquals(SolveResult.Status.UNSOLVABLE, entry.status);
+            assertNull(reader.getDeal(43L, 3, entry));
+            assertTrue(reader.isLost(0xABCDEFL, 1));
+            assertFalse(reader.isLost(0xABCDEFL, 3));
+            // Deal and position keys are separate even when the numbers collide.
+            assertFalse(reader.isLost(42L, 3));
+            assertNull(reader.getDeal(0xABCDEFL, 1, entry));
+            assertEquals(3, reader.size());
+
+            try {
+                SolverCache.openWriter(file, 64);
+                fail("A second writer must be refused");
+            } catch (IOException expected) {
+                // The first writer still holds the lock.
+            }
+        }
+
+        try (SolverCache reopened = SolverCache.openReader(file)) {
+            assertNotNull(reopened.getDeal(42L, 3, entry));
+            assertNotNull(reopened.getDeal(43L, 1, entry));
+            assertTrue(reopened.isLost(0xABCDEFL, 1));
+        }
+    }
+
+    @Test
+    public void evictsOldestEntriesInsteadOfGrowing() throws IOException {
+        File file = new File(folder.getRoot(), "solver.cache");
+        SolveResult result = new SolveResult();
+        result.status = SolveResult.Status.UNSOLVABLE;
+        SolverCache.Entry entry = new SolverCache.Entry();
+        try (SolverCache cache = SolverCache.openWriter(file, 16)) {
+            long length = file.length();
+            for (long seed = 1; seed <= 1000; seed++) {
+                cache.putDeal(seed, 1, result);
+            }
+            assertEquals(length, file.length());
+            assertEquals(cache.capacity(), cache.size());
+            assertNotNull(cache.getDeal(1000L, 1, entry));
+            assertNull(cache.getDeal(1L, 1, entry));
+        }
+    }
+}
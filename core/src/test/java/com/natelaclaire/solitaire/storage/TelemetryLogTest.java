@@ -0,0 +1,67 @@
+package com.natelaclaire.solitaire.storage;
+
+import com.natelaclaire.solitaire.game.Telemetry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TelemetryLogTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void everyRecordIsWrittenOrCountedAsDropped() throws IOException {
+        File dir = folder.newFolder();
+        TelemetryLog log = new TelemetryLog(dir, 16, Long.MAX_VALUE, 2);
+        for (int i = 0; i < 10000; i++) {
+            log.record(Telemetry.MOVE, i, 0L);
+        }
+        log.close();
+
+        long written = 0;
+        long lastDropped = 0;
+        long previous = -1;
+        File file = new File(dir, "telemetry.log");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            for (long r = file.length() / TelemetryLog.RECORD_SIZE; r > 0; r--) {
+                long type = in.readLong();
+                in.readLong();
+                long a = in.readLong();
+                in.readLong();
+                if (type == Telemetry.DROPPED) {
+                    lastDropped = a;
+                } else {
+                    assertEquals(Telemetry.MOVE, type);
+                    assertTrue(a > previous);
+                    previous = a;
+                    written++;
+                }
+            }
+        }
+        assertEquals(log.getDropped(), lastDropped);
+        assertEquals(10000, written + lastDropped);
+    }
+
+    @Test
+    public void rotatesWithinTheFileLimit() {
+        File dir = folder.getRoot();
+        // Files are rotated between batches, so write several batches' worth.
+        TelemetryLog log = new TelemetryLog(dir, 4096, 4 * TelemetryLog.RECORD_SIZE, 3);
+        for (int i = 0; i < 4000; i++) {
+            log.record(Telemetry.FRAMES, 60, 16_000_000L);
+        }
+        log.close();
+        assertTrue(new File(dir, "telemetry.log").exists());
+        assertTrue(new File(dir, "telemetry.2.log").exists());
+        assertTrue(!new File(dir, "telemetry.3.log").exists());
+    }
+}
@@ -0,0 +1,64 @@
+package com.natelaclaire.solitaire.tools;
+
+import com.natelaclaire.solitaire.game.Difficulty;
+import com.natelaclaire.solitaire.game.DifficultyIndex;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DealRatingPipelineTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writesSortedIndexAndResumesFromCheckpoint() throws IOException {
+        File dir = folder.newFolder();
+        DealRatingPipeline pipeline = new DealRatingPipeline(100, 112, dir, 1, 20000, 2);
+        pipeline.rateAll();
+        long length = pipeline.getRatingsFile().length();
+        assertEquals(12L * DealRatingPipeline.RECORD_SIZE, length);
+
+        // A second run over the same range finds the checkpoint and adds nothing.
+        new DealRatingPipeline(100, 112, dir, 1, 20000, 2).rateAll();
+        assertEquals(length, pipeline.getRatingsFile().length());
+
+        pipeline.writeIndex();
+        DifficultyIndex index = new DifficultyIndex(Files.readAllBytes(pipeline.getIndexFile().toPath()));
+        int previous = 0;
+        for (Difficulty difficulty : Difficulty.values()) {
+            for (int i = 0; i < index.count(difficulty); i++) {
+                long seed = index.seedAt(difficulty, i);
+                assertTrue(seed >= 100 && seed < 112);
+                assertTrue(index.ratingAt(difficulty, i) >= previous);
+                previous = index.ratingAt(difficulty, i);
+            }
+        }
+    }
+
+    @Test
+    public void refusesCheckpointFromAnotherRun() throws IOException {
+        File dir = folder.newFolder();
+        DealRatingPipeline pipeline = new DealRatingPipeline(100, 104, dir, 1, 20000, 1);
+        pipeline.rateAll();
+        long length = pipeline.getRatingsFile().length();
+
+        long[][] others = {{100, 108, 1}, {96, 104, 1}, {100, 104, 3}};
+        for (long[] other : others) {
+            try {
+                new DealRatingPipeline(other[0], other[1], dir, (int) other[2], 20000, 1).rateAll();
+                fail("Resumed a checkpoint for another run");
+            } catch (IOException expected) {
+                // The other run's ratings stay as they were.
+            }
+            assertEquals(length, pipeline.getRatingsFile().length());
+        }
+    }
+}
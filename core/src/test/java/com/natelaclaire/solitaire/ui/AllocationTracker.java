@@ -0,0 +1,56 @@
+package com.natelaclaire.solitaire.ui;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counts the bytes the current thread allocates between {@link #begin} and {@link #end}, for checking that a frame
+ * produces no garbage. Relies on the HotSpot per-thread allocation counter, so it is desktop-only and
+ * {@link #isSupported} is false on other JVMs. The counter includes the thread's current allocation buffer, so it
+ * is exact to the byte.
+ */
+class AllocationTracker {
+    private final com.sun.management.ThreadMXBean threads;
+    private final long threadId = Thread.currentThread().getId();
+    /** What calling the counter itself costs, measured once and subtracted from every reading. */
+    private final long overhead;
+    private long start;
+
+    /** Must be created on the thread it tracks. */
+    AllocationTracker() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threads = null;
+        }
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 16; i++) {
+            long before = allocatedBytes();
+            least = Math.min(least, allocatedBytes() - before);
+        }
+        overhead = least;
+    }
+
+    boolean isSupported() {
+        return threads != null;
+    }
+
+    void begin() {
+        start = allocatedBytes();
+    }
+
+    /** Returns the bytes allocated since {@link #begin}, or 0 if unsupported. */
+    long end() {
+        if (threads == null) {
+            return 0L;
+        }
+        return Math.max(0L, allocatedBytes() - start - overhead);
+    }
+
+    private long allocatedBytes() {
+        return threads == null ? 0L : threads.getThreadAllocatedBytes(threadId);
+    }
+}
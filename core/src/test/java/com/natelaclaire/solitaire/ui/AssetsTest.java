@@ -0,0 +1,92 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class AssetsTest {
+    private AtlasRegion region;
+
+    /** Answers region lookups by name, standing in for a packed atlas. */
+    private class NamedAtlas extends TextureAtlas {
+        final ObjectSet<String> names = new ObjectSet<>();
+
+        @Override
+        public AtlasRegion findRegion(String name) {
+            return names.contains(name) ? region : null;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        // The one texture is made here, so GL calls can all be no-ops.
+        GL20 gl = GameRendererAllocationTest.stub(GL20.class);
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Gdx.graphics = GameRendererAllocationTest.stub(Graphics.class);
+        region = new AtlasRegion(new Texture(new GameRendererAllocationTest.BlankTextureData(64, 64)), 0, 0, 8, 8);
+    }
+
+    @After
+    public void tearDown() {
+        Gdx.gl = null;
+        Gdx.gl20 = null;
+        Gdx.graphics = null;
+    }
+
+    @Test
+    public void findsAllFrontsPackedUnderTheirFileNames() {
+        for (String prefix : new String[] {"card", "simplecard"}) {
+            NamedAtlas atlas = new NamedAtlas();
+            for (File file : cardFiles(prefix)) {
+                atlas.names.add(file.getName().substring(0, file.getName().length() - 4));
+            }
+            TextureRegion[] regions = new TextureRegion[52];
+            Assets.findFronts(atlas, prefix, regions);
+            for (TextureRegion region : regions) {
+                assertNotNull(region);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsAnAtlasPackedWithIndexes() {
+        // What TexturePacker names card_clubs_1.png when useIndexes is left on.
+        NamedAtlas atlas = new NamedAtlas();
+        for (File file : cardFiles("card")) {
+            String name = file.getName();
+            atlas.names.add(name.substring(0, name.lastIndexOf('_')));
+        }
+        try {
+            Assets.findFronts(atlas, "card", new TextureRegion[52]);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static File[] cardFiles(String prefix) {
+        File dir = new File("assets/Card_Game_GFX/Cards");
+        if (!dir.isDirectory()) {
+            dir = new File("../assets/Card_Game_GFX/Cards");
+        }
+        File[] files = dir.listFiles((parent, name) -> name.startsWith(prefix + "_") && name.endsWith(".png")
+            && !name.contains("joker"));
+        assertNotNull(files);
+        assertEquals(52, files.length);
+        return files;
+    }
+}
@@ -0,0 +1,453 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.Files;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.natelaclaire.solitaire.game.GameEngine;
+import com.natelaclaire.solitaire.game.Pile;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Draws frames headlessly, against a batch that records nothing, and checks that steady-state frames allocate nothing. */
+public class GameRendererAllocationTest {
+    private static final int WARM_UP_FRAMES = 200;
+    private static final int MEASURED_FRAMES = 50;
+    private static final int ROUNDS = 5;
+
+    private GameEngine engine;
+    private UiState ui;
+    private GameRenderer renderer;
+    private BitmapFont font;
+    private NullBatch batch;
+    private AllocationTracker tracker;
+
+    @Before
+    public void setUp() {
+        // Textures are only created here, so GL and graphics calls can all be no-ops.
+        GL20 gl = stub(GL20.class);
+        Gdx.gl = gl;
+        Gdx.gl20 = gl;
+        Gdx.graphics = stub(Graphics.class);
+
+        Texture texture = new Texture(new BlankTextureData(256, 256));
+        FileHandle fontFile = new FileHandle("com/badlogic/gdx/utils/lsans-15.fnt", Files.FileType.Classpath) {
+        };
+        font = new BitmapFont(new BitmapFont.BitmapFontData(fontFile, false), new TextureRegion(texture),
+            true);
+        GlyphLayout glyphLayout = new GlyphLayout();
+        Assets assets = new Assets(null, TextureCache.DEFAULT_BUDGET_BYTES, texture);
+
+        engine = new GameEngine();
+        engine.newGame(7L);
+        ui = new UiState();
+        GameLayout layout = new GameLayout();
+        layout.update(new FitViewport(1024f, 768f, new OrthographicCamera()), engine.getState(), font, glyphLayout);
+        ui.updateRulesLayout(layout, font, glyphLayout);
+        batch = new NullBatch();
+        renderer = new GameRenderer(batch, font, assets, layout, ui);
+        tracker = new AllocationTracker();
+        Assume.assumeTrue("Needs the HotSpot thread allocation counter", tracker.isSupported());
+    }
+
+    @After
+    public void tearDown() {
+        Gdx.gl = null;
+        Gdx.gl20 = null;
+        Gdx.graphics = null;
+    }
+
+    @Test
+    public void boardFramesDoNotAllocate() {
+        assertEquals(0L, measureFrames());
+    }
+
+    @Test
+    public void selectionAndDragFramesDoNotAllocate() {
+        Pile pile = engine.getState().tableau.get(6);
+        ui.selectedPile = pile;
+        ui.selectedIndex = pile.cards.size - 1;
+        assertEquals(0L, measureFrames());
+
+        ui.dragging = true;
+        ui.dragX = 300f;
+        ui.dragY = 200f;
+        assertEquals(0L, measureFrames());
+    }
+
+    @Test
+    public void overlayFramesDoNotAllocate() {
+        ui.optionsVisible = true;
+        ui.showWinnable = true;
+        ui.winnableLabel = "Still winnable";
+        assertEquals(0L, measureFrames());
+
+        ui.optionsVisible = false;
+        ui.rulesVisible = true;
+        assertEquals(0L, measureFrames());
+    }
+
+    @Test
+    public void longTextDrawsOnlyVisibleLines() {
+        ui.rulesVisible = true;
+        Array<String> lines = new Array<>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add("Line " + i + " of a long help page");
+        }
+        ui.rulesLines = lines;
+        ui.rulesScroll = -2500 * font.getLineHeight() * TextPanel.LINE_SPACING;
+        assertEquals(0L, measureFrames());
+        batch.textDraws = 0;
+        renderer.render(engine);
+        int longTextDraws = batch.textDraws;
+
+        Array<String> shortLines = new Array<>();
+        shortLines.addAll(lines, 0, 40);
+        ui.rulesLines = shortLines;
+        ui.rulesScroll = 0f;
+        renderer.render(engine);
+        batch.textDraws = 0;
+        renderer.render(engine);
+        assertEquals(batch.textDraws, longTextDraws);
+        assertTrue(longTextDraws > 10);
+    }
+
+    @Test
+    public void scrollingLaysOutOnlyLinesComingIntoView() {
+        Array<String> lines = new Array<>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add("Line " + i);
+        }
+        float step = font.getLineHeight() * TextPanel.LINE_SPACING;
+        Rectangle scissor = new Rectangle(0f, 0f, 100f, 100f);
+        for (float height = 200f; height <= 700f; height += 7f) {
+            TextPanel panel = new TextPanel(font);
+            panel.setLines(lines);
+            float top = 700f;
+            float bottom = top - height;
+            float scroll = 0f;
+            panel.draw(batch, 0f, top, bottom, scroll, scissor);
+            for (int i = 0; i < 100; i++) {
+                int before = panel.layouts();
+                panel.draw(batch, 0f, top, bottom, scroll, scissor);
+                assertEquals("Redrawn at height " + height + ", scroll " + scroll, before, panel.layouts());
+
+                // Scrolling by less than a line brings at most one new line into view at the bottom.
+                scroll -= step * 0.37f;
+                panel.draw(batch, 0f, top, bottom, scroll, scissor);
+                assertTrue("Scrolled at height " + height + ", scroll " + scroll, panel.layouts() - before <= 1);
+            }
+        }
+    }
+
+    /** Returns an implementation of {@code type} whose methods do nothing and return zero, false or null. */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == void.class || !returnType.isPrimitive()) {
+                    return null;
+                }
+                // The zero of any other primitive type.
+                return java.lang.reflect.Array.get(java.lang.reflect.Array.newInstance(returnType, 1), 0);
+            }
+        });
+    }
+
+    /**
+     * Returns the fewest bytes allocated by a round of frames. An allocation made every frame shows up in every
+     * round; one-off costs of the JIT settling in do not.
+     */
+    private long measureFrames() {
+        long least = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS && least > 0; round++) {
+            for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                renderer.render(engine);
+            }
+            tracker.begin();
+            for (int i = 0; i < MEASURED_FRAMES; i++) {
+                renderer.render(engine);
+            }
+            least = Math.min(least, tracker.end());
+        }
+        return least;
+    }
+
+    /** Texture contents that need no pixmap, so no natives, to upload. */
+    static class BlankTextureData implements TextureData {
+        private final int width;
+        private final int height;
+
+        BlankTextureData(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public TextureDataType getType() {
+            return TextureDataType.Custom;
+        }
+
+        @Override
+        public boolean isPrepared() {
+            return true;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public Pixmap consumePixmap() {
+            return null;
+        }
+
+        @Override
+        public boolean disposePixmap() {
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target) {
+        }
+
+        @Override
+        public int getWidth() {
+            return width;
+        }
+
+        @Override
+        public int getHeight() {
+            return height;
+        }
+
+        @Override
+        public Pixmap.Format getFormat() {
+            return Pixmap.Format.RGBA8888;
+        }
+
+        @Override
+        public boolean useMipMaps() {
+            return false;
+        }
+
+        @Override
+        public boolean isManaged() {
+            return false;
+        }
+    }
+
+    /** A batch that draws nothing, so frames can be rendered without a GL context. */
+    private static class NullBatch implements Batch {
+        private final Color color = new Color(Color.WHITE);
+        private final Matrix4 projection = new Matrix4();
+        private final Matrix4 transform = new Matrix4();
+        private boolean blending = true;
+        private boolean drawing;
+        /** Calls that draw prebuilt vertices, as text does. */
+        int textDraws;
+
+        @Override
+        public void begin() {
+            drawing = true;
+        }
+
+        @Override
+        public void end() {
+            drawing = false;
+        }
+
+        @Override
+        public void setColor(Color tint) {
+            color.set(tint);
+        }
+
+        @Override
+        public void setColor(float r, float g, float b, float a) {
+            color.set(r, g, b, a);
+        }
+
+        @Override
+        public Color getColor() {
+            return color;
+        }
+
+        @Override
+        public void setPackedColor(float packedColor) {
+            Color.abgr8888ToColor(color, packedColor);
+        }
+
+        @Override
+        public float getPackedColor() {
+            return color.toFloatBits();
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y, float originX, float originY, float width, float height,
+                         float scaleX, float scaleY, float rotation, int srcX, int srcY, int srcWidth, int srcHeight,
+                         boolean flipX, boolean flipY) {
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y, float width, float height, int srcX, int srcY,
+                         int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2,
+                         float v2) {
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y) {
+        }
+
+        @Override
+        public void draw(Texture texture, float x, float y, float width, float height) {
+        }
+
+        @Override
+        public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+            textDraws++;
+        }
+
+        @Override
+        public void draw(TextureRegion region, float x, float y) {
+        }
+
+        @Override
+        public void draw(TextureRegion region, float x, float y, float width, float height) {
+        }
+
+        @Override
+        public void draw(TextureRegion region, float x, float y, float originX, float originY, float width,
+                         float height, float scaleX, float scaleY, float rotation) {
+        }
+
+        @Override
+        public void draw(TextureRegion region, float x, float y, float originX, float originY, float width,
+                         float height, float scaleX, float scaleY, float rotation, boolean clockwise) {
+        }
+
+        @Override
+        public void draw(TextureRegion region, float width, float height, Affine2 transform) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void disableBlending() {
+            blending = false;
+        }
+
+        @Override
+        public void enableBlending() {
+            blending = true;
+        }
+
+        @Override
+        public void setBlendFunction(int srcFunc, int dstFunc) {
+        }
+
+        @Override
+        public void setBlendFunctionSeparate(int srcFuncColor, int dstFuncColor, int srcFuncAlpha,
+                                             int dstFuncAlpha) {
+        }
+
+        @Override
+        public int getBlendSrcFunc() {
+            return GL20.GL_SRC_ALPHA;
+        }
+
+        @Override
+        public int getBlendDstFunc() {
+            return GL20.GL_ONE_MINUS_SRC_ALPHA;
+        }
+
+        @Override
+        public int getBlendSrcFuncAlpha() {
+            return GL20.GL_SRC_ALPHA;
+        }
+
+        @Override
+        public int getBlendDstFuncAlpha() {
+            return GL20.GL_ONE_MINUS_SRC_ALPHA;
+        }
+
+        @Override
+        public Matrix4 getProjectionMatrix() {
+            return projection;
+        }
+
+        @Override
+        public Matrix4 getTransformMatrix() {
+            return transform;
+        }
+
+        @Override
+        public void setProjectionMatrix(Matrix4 projection) {
+            this.projection.set(projection);
+        }
+
+        @Override
+        public void setTransformMatrix(Matrix4 transform) {
+            this.transform.set(transform);
+        }
+
+        @Override
+        public void setShader(ShaderProgram shader) {
+        }
+
+        @Override
+        public ShaderProgram getShader() {
+            return null;
+        }
+
+        @Override
+        public boolean isBlendingEnabled() {
+            return blending;
+        }
+
+        @Override
+        public boolean isDrawing() {
+            return drawing;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TextureCacheTest {
+    private static final long ENTRY_BYTES = 1000;
+
+    /** Stands in for a texture, so the cache can be exercised without a GL context. */
+    private static class FakeTexture {
+        boolean disposed;
+    }
+
+    /** Stands in for the asset manager: each update finishes loading one queued path. */
+    private static class FakeCache extends TextureCache {
+        final Array<String> queued = new Array<>();
+        final Array<String> loaded = new Array<>();
+        final ObjectMap<String, FakeTexture> textures = new ObjectMap<>();
+
+        FakeCache(long budgetBytes) {
+            super(null, budgetBytes);
+        }
+
+        /** Acquires {@code path} and loads it straight away. */
+        FakeTexture load(String path) {
+            acquire(path);
+            finishLoading();
+            return (FakeTexture) get(path);
+        }
+
+        @Override
+        void request(String path) {
+            queued.add(path);
+        }
+
+        @Override
+        boolean step(int millis) {
+            if (queued.size > 0) {
+                String path = queued.removeIndex(0);
+                loaded.add(path);
+                textures.put(path, new FakeTexture());
+            }
+            return queued.size == 0;
+        }
+
+        @Override
+        void finish() {
+            while (!step(0)) {
+                // Load everything queued.
+            }
+        }
+
+        @Override
+        Object poll(String path) {
+            return textures.get(path);
+        }
+
+        @Override
+        void unload(String path) {
+            FakeTexture texture = textures.remove(path);
+            if (texture != null) {
+                texture.disposed = true;
+            }
+        }
+
+        @Override
+        long sizeOf(Object resource) {
+            return ENTRY_BYTES;
+        }
+    }
+
+    @Test
+    public void loadsAcrossUpdates() {
+        FakeCache cache = new FakeCache(10 * ENTRY_BYTES);
+        cache.acquire("a.png");
+        cache.acquire("b.png");
+        assertNull(cache.get("a.png"));
+        assertEquals(0, cache.getResidentBytes());
+        assertFalse(cache.update(8));
+        assertTrue(cache.isLoaded("a.png"));
+        assertFalse(cache.isLoaded("b.png"));
+        assertTrue(cache.update(8));
+        assertTrue(cache.isLoaded("b.png"));
+        assertEquals(2 * ENTRY_BYTES, cache.getResidentBytes());
+        assertTrue(cache.update(8));
+    }
+
+    @Test
+    public void releasedEntriesStayCachedWithinBudget() {
+        FakeCache cache = new FakeCache(3 * ENTRY_BYTES);
+        FakeTexture first = cache.load("a.png");
+        cache.release("a.png");
+        cache.load("b.png");
+        cache.release("b.png");
+        assertSame(first, cache.load("a.png"));
+        assertEquals(2, cache.loaded.size);
+        assertEquals(2 * ENTRY_BYTES, cache.getResidentBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedIdleEntries() {
+        FakeCache cache = new FakeCache(2 * ENTRY_BYTES);
+        FakeTexture a = cache.load("a.png");
+        FakeTexture b = cache.load("b.png");
+        cache.release("a.png");
+        cache.release("b.png");
+        // Touch a, so b becomes the least recently used.
+        cache.load("a.png");
+        cache.release("a.png");
+        cache.load("c.png");
+        assertTrue(b.disposed);
+        assertFalse(a.disposed);
+        assertFalse(cache.isResident("b.png"));
+        assertTrue(cache.isResident("a.png"));
+        assertEquals(2 * ENTRY_BYTES, cache.getResidentBytes());
+    }
+
+    @Test
+    public void neverEvictsReferencedEntries() {
+        FakeCache cache = new FakeCache(ENTRY_BYTES);
+        FakeTexture a = cache.load("a.png");
+        FakeTexture b = cache.load("b.png");
+        assertFalse(a.disposed);
+        assertFalse(b.disposed);
+        assertEquals(2 * ENTRY_BYTES, cache.getResidentBytes());
+        cache.release("a.png");
+        assertTrue(a.disposed);
+        assertEquals(ENTRY_BYTES, cache.getResidentBytes());
+        cache.dispose();
+        assertTrue(b.disposed);
+        assertEquals(0, cache.getResidentBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsUnbalancedRelease() {
+        FakeCache cache = new FakeCache(ENTRY_BYTES);
+        cache.load("a.png");
+        cache.release("a.png");
+        cache.release("a.png");
+    }
+}
@@ -0,0 +1,60 @@
+package com.natelaclaire.solitaire.ui;
+
+import com.badlogic.gdx.utils.Array;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WordWrapperTest {
+    private static final float CHAR_WIDTH = 10f;
+
+    /** Measures as a monospaced font would at scale 1, so expected lines can be worked out by counting. */
+    private static WordWrapper monospaced(String text) {
+        WordWrapper wrapper = new WordWrapper(text);
+        Array<String> words = new Array<>(text.trim().split("\\s+"));
+        float[] widths = new float[words.size];
+        for (int i = 0; i < words.size; i++) {
+            widths[i] = words.get(i).length() * CHAR_WIDTH;
+        }
+        wrapper.measured(widths, CHAR_WIDTH, 1f);
+        return wrapper;
+    }
+
+    @Test
+    public void wrapsGreedilyAtWordBoundaries() {
+        WordWrapper wrapper = monospaced("the quick brown fox jumps over the lazy dog");
+        Array<String> lines = wrapper.wrap(15 * CHAR_WIDTH, 1f);
+        assertEquals(new Array<>(new String[] {"the quick brown", "fox jumps over", "the lazy dog"}), lines);
+        for (String line : lines) {
+            assertTrue(line.length() * CHAR_WIDTH <= 15 * CHAR_WIDTH);
+        }
+    }
+
+    @Test
+    public void keepsParagraphsAndBlankLines() {
+        WordWrapper wrapper = monospaced("Goal:  win\n\nStock:\tdraw   cards");
+        assertEquals(new Array<>(new String[] {"Goal: win", "", "Stock: draw cards"}),
+            wrapper.wrap(100 * CHAR_WIDTH, 1f));
+    }
+
+    @Test
+    public void givesOverlongWordsTheirOwnLine() {
+        WordWrapper wrapper = monospaced("a https://ci.itch.io/card-games-graphics-pack b");
+        assertEquals(new Array<>(new String[] {"a", "https://ci.itch.io/card-games-graphics-pack", "b"}),
+            wrapper.wrap(5 * CHAR_WIDTH, 1f));
+    }
+
+    @Test
+    public void scalesMeasuredWidthsAndCachesLayouts() {
+        WordWrapper wrapper = monospaced("the quick brown fox jumps over the lazy dog");
+        Array<String> lines = wrapper.wrap(15 * CHAR_WIDTH, 1f);
+        Array<String> doubled = wrapper.wrap(30 * CHAR_WIDTH, 2f);
+        assertEquals(lines, doubled);
+        assertNotSame(lines, doubled);
+        assertSame(lines, wrapper.wrap(15 * CHAR_WIDTH, 1f));
+        assertSame(doubled, wrapper.wrap(30 * CHAR_WIDTH, 2f));
+    }
+}
@@ -3,6 +3,11 @@ package com.natelaclaire.solitaire.lwjgl3;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 import com.natelaclaire.solitaire.SolitaireGame;
+import com.natelaclaire.solitaire.storage.JournalFile;
+import com.natelaclaire.solitaire.storage.LeaderboardFile;
+import com.natelaclaire.solitaire.storage.TelemetryLog;
+
+import java.io.File;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
@@ -12,7 +17,10 @@ public class Lwjgl3Launcher {
     }
 
     private static Lwjgl3Application createApplication() {
-        return new Lwjgl3Application(new SolitaireGame(), getDefaultConfiguration());
+        File dataDir = new File(System.getProperty("user.home"), ".solitaire");
+        TelemetryLog telemetry = new TelemetryLog(new File(dataDir, "telemetry"));
+        SolitaireGame game = new SolitaireGame(new LeaderboardFile(dataDir), telemetry, new JournalFile(dataDir));
+        return new Lwjgl3Application(game, getDefaultConfiguration());
     }
 
     private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {